@@ -0,0 +1,9 @@
+plugins {
+    java
+}
+
+// 注解处理器运行在编译器所在的 JVM 中，按 Java 8 编译以兼容所有受支持的 JDK
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+    options.release.set(8)
+}
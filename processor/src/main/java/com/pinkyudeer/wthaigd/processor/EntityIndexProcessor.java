@@ -0,0 +1,152 @@
+package com.pinkyudeer.wthaigd.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * 实体索引注解处理器。
+ * 编译时收集所有带 @Table 注解的类，生成 {@value #INDEX_PATH} 资源文件，运行时据此创建表，不再扫描类路径。
+ * 每行一个实体：类名、表名和列名（含父类中的列，父类在前），以制表符分隔，列名之间以逗号分隔。
+ * 注解按名称匹配，处理器不依赖模组本身的类。
+ */
+@SupportedAnnotationTypes(EntityIndexProcessor.TABLE_ANNOTATION)
+public class EntityIndexProcessor extends AbstractProcessor {
+
+    static final String TABLE_ANNOTATION = "com.pinkyudeer.wthaigd.helper.dataBase.annotation.Table";
+    static final String COLUMN_ANNOTATION = "com.pinkyudeer.wthaigd.helper.dataBase.annotation.Column";
+    static final String INDEX_PATH = "META-INF/wthaigd/entities.idx";
+
+    /** 类名到索引行，按类名排序使输出稳定 */
+    private final Map<String, String> entries = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) continue;
+                TypeElement type = (TypeElement) element;
+                if (type.getModifiers()
+                    .contains(Modifier.ABSTRACT)) {
+                    processingEnv.getMessager()
+                        .printMessage(Diagnostic.Kind.ERROR, "@Table 不能用于抽象类", type);
+                    continue;
+                }
+                String tableName = getName(type, TABLE_ANNOTATION);
+                String className = processingEnv.getElementUtils()
+                    .getBinaryName(type)
+                    .toString();
+                entries.put(className, className + "\t" + tableName + "\t" + String.join(",", getColumns(type)));
+            }
+        }
+        if (roundEnv.processingOver() && !entries.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    /**
+     * 收集类及其父类中带 @Column 注解的非静态字段的列名，父类的列在前，与运行时的字段顺序一致。
+     *
+     * @param type 实体类
+     * @return 列名列表
+     */
+    private List<String> getColumns(TypeElement type) {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        TypeElement current = type;
+        while (current != null) {
+            hierarchy.add(current);
+            TypeMirror parent = current.getSuperclass();
+            current = parent.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) parent).asElement()
+                : null;
+        }
+        Collections.reverse(hierarchy);
+
+        List<String> columns = new ArrayList<>();
+        for (TypeElement level : hierarchy) {
+            for (Element member : level.getEnclosedElements()) {
+                // 与运行时的实体元数据一致，静态字段不是列
+                if (member.getKind() != ElementKind.FIELD || member.getModifiers()
+                    .contains(Modifier.STATIC)) continue;
+                String column = getName(member, COLUMN_ANNOTATION);
+                if (column != null) columns.add(column);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * 读取元素上指定注解的 name 属性。
+     *
+     * @param element        元素
+     * @param annotationName 注解类名
+     * @return name 属性值，元素没有该注解时返回null
+     */
+    private static String getName(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (!((TypeElement) mirror.getAnnotationType()
+                .asElement()).getQualifiedName()
+                    .contentEquals(annotationName)) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : mirror.getElementValues()
+                .entrySet()) {
+                if (value.getKey()
+                    .getSimpleName()
+                    .contentEquals("name")) {
+                    return String.valueOf(
+                        value.getValue()
+                            .getValue());
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 写出索引资源文件。
+     */
+    private void writeIndex() {
+        try {
+            FileObject file = processingEnv.getFiler()
+                .createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_PATH);
+            try (Writer writer = file.openWriter()) {
+                for (String line : entries.values()) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager()
+                .printMessage(Diagnostic.Kind.ERROR, "写入实体索引失败: " + e.getMessage());
+        }
+    }
+}
@@ -22,3 +22,5 @@ pluginManagement {
 plugins {
     id("com.gtnewhorizons.gtnhsettingsconvention") version ("1.0.38")
 }
+
+include(":processor")
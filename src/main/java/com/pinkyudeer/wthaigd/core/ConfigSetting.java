@@ -33,9 +33,130 @@ public class ConfigSetting {
             new ConfigEntry.BooleanConfigEntry(
                 "isMemoryMode",
                 true,
-                "Whether to enable sqlite memory optimization mode",
+                "Whether to keep the sqlite database in memory (disable to open the file directly in WAL mode)",
                 "config.comment.isMemoryMode"));
 
+        // sqlite
+        entries.add(
+            new ConfigEntry.BooleanConfigEntry(
+                "sqlite.asyncSnapshot",
+                true,
+                "Whether to save the in-memory database to file on a background thread",
+                "config.comment.sqlite.asyncSnapshot"));
+        entries.add(
+            new ConfigEntry.IntConfigEntry(
+                "sqlite.snapshotPagesPerStep",
+                256,
+                "Number of database pages copied per background snapshot step",
+                "config.comment.sqlite.snapshotPagesPerStep",
+                1,
+                65536));
+        entries.add(
+            new ConfigEntry.BooleanConfigEntry(
+                "sqlite.journal.enabled",
+                true,
+                "Whether to journal committed writes between snapshots in memory mode and replay them after a crash",
+                "config.comment.sqlite.journal.enabled"));
+        entries.add(
+            new ConfigEntry.IntConfigEntry(
+                "sqlite.journal.flushIntervalMs",
+                100,
+                "Interval (ms) at which journaled commits are written and synced to disk together",
+                "config.comment.sqlite.journal.flushIntervalMs",
+                10,
+                10000));
+        entries.add(
+            new ConfigEntry.IntConfigEntry(
+                "sqlite.journal.snapshotIntervalSeconds",
+                600,
+                "Minimum seconds between full snapshots while the journal is enabled",
+                "config.comment.sqlite.journal.snapshotIntervalSeconds",
+                0,
+                86400));
+        entries.add(
+            new ConfigEntry.IntConfigEntry(
+                "sqlite.startupWaitSeconds",
+                30,
+                "Maximum seconds a synchronous database call waits for the background restore on world load",
+                "config.comment.sqlite.startupWaitSeconds",
+                0,
+                600));
+        entries.add(
+            new ConfigEntry.BooleanConfigEntry(
+                "sqlite.schema.autoMigrate",
+                true,
+                "Whether to migrate existing tables to the entity definitions on world load, rebuilding them if needed",
+                "config.comment.sqlite.schema.autoMigrate"));
+        entries.add(
+            new ConfigEntry.StringConfigEntry(
+                "sqlite.uuidStorage",
+                "blob",
+                "Storage format of UUID columns: blob (16 bytes) or text (36 chars), "
+                    + "existing tables are migrated on load",
+                "config.comment.sqlite.uuidStorage"));
+        entries.add(
+            new ConfigEntry.IntConfigEntry(
+                "sqlite.mmapSizeMB",
+                256,
+                "Memory-mapped I/O size (MB) used when memory mode is disabled, 0 to disable",
+                "config.comment.sqlite.mmapSizeMB",
+                0,
+                4096));
+        entries.add(
+            new ConfigEntry.IntConfigEntry(
+                "sqlite.cacheSizeMB",
+                32,
+                "Page cache size (MB) used when memory mode is disabled",
+                "config.comment.sqlite.cacheSizeMB",
+                1,
+                1024));
+        entries.add(
+            new ConfigEntry.IntConfigEntry(
+                "sqlite.statementCacheSize",
+                64,
+                "Maximum number of prepared statements kept for reuse",
+                "config.comment.sqlite.statementCacheSize",
+                1,
+                1024));
+        entries.add(
+            new ConfigEntry.IntConfigEntry(
+                "sqlite.executorQueueSize",
+                1024,
+                "Maximum number of queued database tasks before submitters wait",
+                "config.comment.sqlite.executorQueueSize",
+                16,
+                65536));
+        entries.add(
+            new ConfigEntry.StringConfigEntry(
+                "sqlite.entityCache.policy",
+                "slru",
+                "Eviction policy of the primary-key entity cache: none, lru or slru (segmented LRU)",
+                "config.comment.sqlite.entityCache.policy"));
+        entries.add(
+            new ConfigEntry.IntConfigEntry(
+                "sqlite.entityCache.maxEntries",
+                1024,
+                "Maximum number of cached entities per entity type",
+                "config.comment.sqlite.entityCache.maxEntries",
+                1,
+                1048576));
+        entries.add(
+            new ConfigEntry.IntConfigEntry(
+                "sqlite.entityCache.ttlSeconds",
+                300,
+                "Seconds a cached entity stays valid after being loaded, 0 to never expire",
+                "config.comment.sqlite.entityCache.ttlSeconds",
+                0,
+                86400));
+        entries.add(
+            new ConfigEntry.IntConfigEntry(
+                "sqlite.queryCache.maxEntries",
+                256,
+                "Maximum number of cached query results for queries marked as cached, 0 to disable",
+                "config.comment.sqlite.queryCache.maxEntries",
+                0,
+                65536));
+
         // blur
         entries.add(
             new ConfigEntry.IntConfigEntry(
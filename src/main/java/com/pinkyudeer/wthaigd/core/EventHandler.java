@@ -66,7 +66,7 @@ public class EventHandler {
 
             Wthaigd.LOG.info("World save event triggered");
 
-            SQLiteManager.saveDataFromMemoryToFile();
+            SQLiteManager.requestSave();
         }
 
         @SubscribeEvent
@@ -0,0 +1,226 @@
+package com.pinkyudeer.wthaigd.helper.dataBase;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import com.pinkyudeer.wthaigd.Wthaigd;
+
+/**
+ * 数据库单线程执行器。
+ * 所有对数据库连接的访问都提交到唯一的数据库线程上执行，由有界队列供给任务，
+ * 从而串行化对同一连接的访问，游戏线程也可以通过异步接口避免阻塞在 SQLite 上。
+ * 队列已满时提交方会阻塞等待，而不是丢弃任务或在调用线程上执行。
+ * 启动任务（恢复数据、重放日志等）作为第一个任务在后台执行，完成前异步提交照常排在其后，
+ * 其他线程的同步调用最多等待设定的超时时间，不会无限期阻塞服务器线程。
+ */
+public class DataBaseExecutor {
+
+    private static volatile ThreadPoolExecutor executor;
+    private static volatile Thread ownerThread;
+    /** 启动任务完成后完成，启动失败时异常完成 */
+    private static volatile CompletableFuture<Void> ready = CompletableFuture.completedFuture(null);
+    private static volatile long readyTimeoutMillis = 0;
+
+    /**
+     * 启动数据库线程。
+     *
+     * @param queueCapacity 任务队列容量
+     */
+    public static synchronized void start(int queueCapacity) {
+        if (executor != null && !executor.isShutdown()) return;
+        executor = new ThreadPoolExecutor(
+            1,
+            1,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "wthaigd-db");
+                thread.setDaemon(true);
+                ownerThread = thread;
+                return thread;
+            },
+            (runnable, pool) -> {
+                if (pool.isShutdown()) {
+                    throw new RejectedExecutionException("数据库线程已关闭");
+                }
+                try {
+                    // 队列已满时阻塞提交方，保证任务不会丢失也不会离开数据库线程执行
+                    pool.getQueue()
+                        .put(runnable);
+                } catch (InterruptedException e) {
+                    Thread.currentThread()
+                        .interrupt();
+                    throw new RejectedExecutionException("等待数据库队列时被中断", e);
+                }
+            });
+    }
+
+    /**
+     * 在数据库线程上执行启动任务，需要在启动数据库线程后、提交其他任务前调用。
+     * 启动任务完成前，其他线程的同步调用最多等待指定的时间，超时后抛出异常；异步提交的任务排在启动任务之后执行。
+     * 启动任务失败后，所有同步调用和异步提交都会失败。
+     *
+     * @param task              启动任务
+     * @param waitTimeoutMillis 同步调用等待启动完成的最长时间（毫秒）
+     * @return 启动任务完成时完成的 Future
+     */
+    public static CompletableFuture<Void> startup(Runnable task, long waitTimeoutMillis) {
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        readyTimeoutMillis = waitTimeoutMillis;
+        ready = gate;
+        submit(() -> {
+            task.run();
+            return null;
+        }).whenComplete((result, e) -> {
+            if (e != null) {
+                gate.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            } else {
+                gate.complete(null);
+            }
+        });
+        return gate;
+    }
+
+    /**
+     * 启动任务是否已成功完成。
+     *
+     * @return 已成功完成时返回true
+     */
+    public static boolean isReady() {
+        CompletableFuture<Void> gate = ready;
+        return gate.isDone() && !gate.isCompletedExceptionally();
+    }
+
+    /**
+     * 等待启动任务完成。
+     *
+     * @throws IllegalStateException 当启动失败、等待超时或被中断时抛出
+     */
+    private static void awaitReady() {
+        CompletableFuture<Void> gate = ready;
+        if (gate.isDone() && !gate.isCompletedExceptionally()) return;
+        try {
+            gate.get(readyTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("数据库仍在后台初始化，等待 " + readyTimeoutMillis + " ms 后超时", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("数据库初始化失败", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                .interrupt();
+            throw new IllegalStateException("等待数据库初始化时被中断", e);
+        }
+    }
+
+    /**
+     * 关闭数据库线程。
+     * 已提交的任务会全部执行完毕后才返回。
+     */
+    public static void shutdown() {
+        ThreadPoolExecutor current;
+        synchronized (DataBaseExecutor.class) {
+            current = executor;
+            executor = null;
+        }
+        if (current == null) return;
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(30, TimeUnit.SECONDS)) {
+                Wthaigd.LOG.error("数据库线程未能在30秒内执行完剩余任务");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                .interrupt();
+        }
+        ownerThread = null;
+    }
+
+    /**
+     * 当前线程是否为数据库线程。
+     *
+     * @return 是否为数据库线程
+     */
+    public static boolean isOwnerThread() {
+        return Thread.currentThread() == ownerThread;
+    }
+
+    /**
+     * 异步执行数据库任务。
+     * 若当前已在数据库线程上或数据库线程未启动，则直接在当前线程执行，避免自身等待队列造成死锁。
+     *
+     * @param task 数据库任务
+     * @param <R>  结果类型
+     * @return 任务结果
+     */
+    public static <R> CompletableFuture<R> submit(Supplier<R> task) {
+        ThreadPoolExecutor current = executor;
+        if (ready.isCompletedExceptionally() && !isOwnerThread()) {
+            CompletableFuture<R> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("数据库初始化失败"));
+            return failed;
+        }
+        if (current == null || isOwnerThread()) {
+            try {
+                return CompletableFuture.completedFuture(task.get());
+            } catch (RuntimeException e) {
+                CompletableFuture<R> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+        }
+        return CompletableFuture.supplyAsync(task, current);
+    }
+
+    /**
+     * 在数据库线程上同步执行任务并等待结果。
+     *
+     * @param task 数据库任务
+     * @param <R>  结果类型
+     * @return 任务结果
+     */
+    public static <R> R call(Supplier<R> task) {
+        if (executor == null || isOwnerThread()) {
+            return task.get();
+        }
+        awaitReady();
+        try {
+            return submit(task).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 在数据库线程上同步执行无返回值的任务。
+     *
+     * @param task 数据库任务
+     */
+    public static void run(Runnable task) {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 当前排队中的任务数量。
+     *
+     * @return 排队任务数量
+     */
+    public static int getQueueSize() {
+        ThreadPoolExecutor current = executor;
+        return current == null ? 0 : current.getQueue()
+            .size();
+    }
+}
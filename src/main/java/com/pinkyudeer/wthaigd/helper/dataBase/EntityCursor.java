@@ -0,0 +1,159 @@
+package com.pinkyudeer.wthaigd.helper.dataBase;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.pinkyudeer.wthaigd.Wthaigd;
+
+/**
+ * 实体游标。
+ * 使用独立的、不进入语句缓存的预编译语句执行查询，按批次在数据库线程上读取并映射行，
+ * 调用方每次只持有一个批次的实体，内存占用与表大小无关。
+ * 读取完毕时自动释放语句；提前结束遍历时必须调用 {@link #close()}，建议配合 try-with-resources 使用。
+ *
+ * @param <T> 实体类型
+ */
+public class EntityCursor<T> implements Iterator<T>, AutoCloseable {
+
+    /** 默认每批读取的行数 */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final Class<T> type;
+    private final int batchSize;
+    private final ArrayDeque<T> buffer;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private RowMapper<T> mapper;
+    private boolean exhausted = false;
+    private boolean closed = false;
+
+    private EntityCursor(Class<T> type, int batchSize, PreparedStatement statement, ResultSet resultSet) {
+        this.type = type;
+        this.batchSize = batchSize;
+        this.buffer = new ArrayDeque<>(batchSize);
+        this.statement = statement;
+        this.resultSet = resultSet;
+    }
+
+    /**
+     * 执行查询并打开游标。
+     *
+     * @param sql       SQL 查询语句
+     * @param params    SQL 参数
+     * @param type      目标实体类
+     * @param batchSize 每批读取的行数
+     * @param <T>       实体类型
+     * @return 实体游标
+     */
+    public static <T> EntityCursor<T> open(String sql, Object[] params, Class<T> type, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("游标批次大小必须大于0");
+        }
+        return DataBaseExecutor.call(QueryPlanAuditor.traced(() -> {
+            PreparedStatement ps = null;
+            try {
+                ps = SQLiteManager.prepareUncached(sql, params);
+                return new EntityCursor<>(type, batchSize, ps, ps.executeQuery());
+            } catch (SQLException e) {
+                closeQuietly(ps);
+                throw new RuntimeException("打开游标失败: " + sql, e);
+            }
+        }));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (buffer.isEmpty() && !exhausted && !closed) {
+            DataBaseExecutor.run(this::fetchBatch);
+        }
+        return !buffer.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return buffer.poll();
+    }
+
+    /**
+     * 以顺序流的形式遍历剩余的实体，关闭流时同时关闭游标。
+     *
+     * @return 实体流
+     */
+    public Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators
+            .spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false)
+            .onClose(this::close);
+    }
+
+    /**
+     * 关闭游标并释放语句，可重复调用。
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        buffer.clear();
+        if (statement != null) {
+            DataBaseExecutor.run(this::release);
+        }
+    }
+
+    /**
+     * 在数据库线程上读取并映射下一批行，读取完毕时释放语句。
+     */
+    private void fetchBatch() {
+        try {
+            if (mapper == null) {
+                mapper = RowMapper.forResultSet(resultSet, type);
+            }
+            while (buffer.size() < batchSize) {
+                if (!resultSet.next()) {
+                    exhausted = true;
+                    release();
+                    return;
+                }
+                buffer.add(mapper.map(resultSet));
+            }
+        } catch (SQLException e) {
+            exhausted = true;
+            release();
+            throw new RuntimeException("读取游标失败", e);
+        }
+    }
+
+    /**
+     * 关闭结果集和语句。
+     */
+    private void release() {
+        closeQuietly(resultSet);
+        closeQuietly(statement);
+        resultSet = null;
+        statement = null;
+    }
+
+    /**
+     * 关闭资源，忽略并记录关闭失败。
+     *
+     * @param resource 资源
+     */
+    private static void closeQuietly(AutoCloseable resource) {
+        if (resource == null) return;
+        try {
+            resource.close();
+        } catch (Exception e) {
+            Wthaigd.LOG.error("关闭游标资源失败", e);
+        }
+    }
+}
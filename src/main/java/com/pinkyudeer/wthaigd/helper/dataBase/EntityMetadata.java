@@ -0,0 +1,302 @@
+package com.pinkyudeer.wthaigd.helper.dataBase;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.objenesis.instantiator.ObjectInstantiator;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.pinkyudeer.wthaigd.helper.UtilHelper;
+import com.pinkyudeer.wthaigd.helper.dataBase.annotation.Column;
+import com.pinkyudeer.wthaigd.helper.dataBase.annotation.Reference;
+import com.pinkyudeer.wthaigd.helper.dataBase.annotation.Table;
+import com.pinkyudeer.wthaigd.helper.dataBase.converter.TypeConverter;
+import com.pinkyudeer.wthaigd.helper.dataBase.converter.TypeConverters;
+
+import lombok.Getter;
+
+/**
+ * 实体元数据。
+ * 每个实体类只扫描一次 {@link Table}/{@link Column}/{@link Reference} 注解，生成不可变的元数据，
+ * 由各构建器、DDL 构建器和结果集映射共享，避免每次查询都重新反射扫描字段。
+ * 字段按父类在前、子类在后的声明顺序排列，与建表语句中的列顺序一致。
+ *
+ * @param <T> 实体类型
+ */
+public final class EntityMetadata<T> {
+
+    private static final Map<Class<?>, EntityMetadata<?>> REGISTRY = new ConcurrentHashMap<>();
+    // 优先使用无参构造函数，没有无参构造函数的实体（如Task）退回到不调用构造函数的实例化方式
+    private static final DefaultInstantiatorStrategy INSTANTIATOR_STRATEGY = new DefaultInstantiatorStrategy(
+        new StdInstantiatorStrategy());
+
+    /**
+     * 列元数据
+     */
+    @Getter
+    public static final class ColumnMetadata {
+
+        private final Field field;
+        private final Column column;
+        private final Reference reference;
+        private final String name;
+        private final Class<?> javaType;
+        private final boolean primaryKey;
+        private final TypeConverter<Object> converter;
+
+        @SuppressWarnings("unchecked")
+        private ColumnMetadata(Field field, Column column) {
+            field.setAccessible(true);
+            this.field = field;
+            this.column = column;
+            this.reference = field.getAnnotation(Reference.class);
+            this.name = column.name();
+            this.javaType = field.getType();
+            this.primaryKey = column.isPrimaryKey();
+            this.converter = (TypeConverter<Object>) TypeConverters.forType(javaType);
+        }
+
+        /**
+         * 读取实体对象中该列的值。
+         *
+         * @param entity 实体对象
+         * @return 列值
+         */
+        public Object get(Object entity) {
+            try {
+                return field.get(entity);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("无法访问字段: " + field.getName(), e);
+            }
+        }
+
+        /**
+         * 设置实体对象中该列的值。
+         *
+         * @param entity 实体对象
+         * @param value  列值
+         */
+        public void set(Object entity, Object value) {
+            try {
+                field.set(entity, value);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("无法访问字段: " + field.getName(), e);
+            }
+        }
+    }
+
+    @Getter
+    private final Class<T> type;
+    private final String tableName;
+    /** 所有列，父类字段在前 */
+    @Getter
+    private final List<ColumnMetadata> columns;
+    /** 主键列，没有主键时为null */
+    @Getter
+    private final ColumnMetadata primaryKey;
+    /** 带有外键引用的列 */
+    @Getter
+    private final List<ColumnMetadata> references;
+    /** 索引名到列名列表的映射 */
+    @Getter
+    private final Map<String, List<String>> indexes;
+    private final Map<String, ColumnMetadata> columnsByName;
+    private final Map<Field, ColumnMetadata> columnsByField;
+    private volatile ObjectInstantiator<T> instantiator;
+
+    private EntityMetadata(Class<T> type) {
+        this.type = type;
+        Table table = type.getAnnotation(Table.class);
+        this.tableName = table != null ? table.name() : null;
+
+        List<ColumnMetadata> columnList = new ArrayList<>();
+        List<ColumnMetadata> referenceList = new ArrayList<>();
+        Map<String, List<String>> indexMap = new LinkedHashMap<>();
+        Map<String, ColumnMetadata> byName = new HashMap<>();
+        Map<Field, ColumnMetadata> byField = new HashMap<>();
+        ColumnMetadata primary = null;
+
+        for (Field field : UtilHelper.getAllFieldsReverse(type)) {
+            Column column = field.getAnnotation(Column.class);
+            if (column == null || Modifier.isStatic(field.getModifiers())) continue;
+
+            ColumnMetadata meta = new ColumnMetadata(field, column);
+            columnList.add(meta);
+            byName.put(meta.name.toLowerCase(Locale.ROOT), meta);
+            byField.put(field, meta);
+            if (meta.primaryKey && primary == null) {
+                primary = meta;
+            }
+            if (meta.reference != null) {
+                referenceList.add(meta);
+            }
+            for (String indexName : column.index()) {
+                indexMap.computeIfAbsent(indexName, k -> new ArrayList<>())
+                    .add(meta.name);
+            }
+        }
+        indexMap.replaceAll((k, v) -> Collections.unmodifiableList(v));
+
+        this.columns = Collections.unmodifiableList(columnList);
+        this.references = Collections.unmodifiableList(referenceList);
+        this.indexes = Collections.unmodifiableMap(indexMap);
+        this.columnsByName = byName;
+        this.columnsByField = byField;
+        this.primaryKey = primary;
+    }
+
+    /**
+     * 获取实体类的元数据，首次访问时扫描注解并缓存。
+     *
+     * @param type 实体类
+     * @param <T>  实体类型
+     * @return 实体元数据
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EntityMetadata<T> of(Class<T> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("实体类不能为null");
+        }
+        return (EntityMetadata<T>) REGISTRY.computeIfAbsent(type, EntityMetadata::new);
+    }
+
+    /**
+     * 获取表名。
+     *
+     * @return 表名
+     * @throws IllegalArgumentException 当实体类没有@Table注解时抛出
+     */
+    public String getTableName() {
+        if (tableName == null) {
+            throw new IllegalArgumentException("类必须使用@Table注解: " + type.getName());
+        }
+        return tableName;
+    }
+
+    /**
+     * 实体类是否使用了@Table注解。
+     *
+     * @return 是否为表实体
+     */
+    public boolean isTable() {
+        return tableName != null;
+    }
+
+    /**
+     * 获取主键列，没有主键时抛出异常。
+     *
+     * @return 主键列
+     */
+    public ColumnMetadata requirePrimaryKey() {
+        if (primaryKey == null) {
+            throw new IllegalStateException("实体类没有主键字段: " + type.getName());
+        }
+        return primaryKey;
+    }
+
+    /**
+     * 根据列名查找列（忽略大小写）。
+     *
+     * @param columnName 列名
+     * @return 列元数据，不存在时返回null
+     */
+    public ColumnMetadata getColumn(String columnName) {
+        return columnName == null ? null : columnsByName.get(columnName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 根据字段查找列。
+     *
+     * @param field 字段
+     * @return 列元数据，字段没有@Column注解时返回null
+     */
+    public ColumnMetadata getColumn(Field field) {
+        return columnsByField.get(field);
+    }
+
+    /**
+     * 创建实体类的新实例。
+     * 有无参构造函数时调用无参构造函数，否则跳过构造函数直接分配对象，此时字段初始值不会生效。
+     *
+     * @return 实体对象
+     */
+    public T newInstance() {
+        ObjectInstantiator<T> current = instantiator;
+        if (current == null) {
+            current = INSTANTIATOR_STRATEGY.newInstantiatorOf(type);
+            instantiator = current;
+        }
+        return current.newInstance();
+    }
+
+    /**
+     * 按列顺序读取实体对象的所有列值，包括null。
+     *
+     * @param entity 实体对象
+     * @return 列值数组，下标与 {@link #getColumns()} 一致
+     */
+    public Object[] getValues(Object entity) {
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = columns.get(i)
+                .get(entity);
+        }
+        return values;
+    }
+
+    /**
+     * 由列值数组构造实体对象，是 {@link #getValues(Object)} 的逆操作。
+     *
+     * @param values 列值数组，下标与 {@link #getColumns()} 一致
+     * @return 实体对象
+     */
+    public T fromValues(Object[] values) {
+        T entity = newInstance();
+        for (int i = 0; i < values.length; i++) {
+            ColumnMetadata column = columns.get(i);
+            if (values[i] == null && column.getJavaType()
+                .isPrimitive()) continue;
+            column.set(entity, values[i]);
+        }
+        return entity;
+    }
+
+    /**
+     * 获取列在 {@link #getColumns()} 中的序号。
+     *
+     * @param column 列元数据
+     * @return 列序号，不属于该实体时返回-1
+     */
+    public int indexOf(ColumnMetadata column) {
+        return columns.indexOf(column);
+    }
+
+    /**
+     * 获取实体对象中所有非空列的列名和值，按列顺序排列。
+     *
+     * @param entity 实体对象
+     * @return 列名和值的映射
+     */
+    public Map<String, Object> getColumnValues(Object entity) {
+        if (entity == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (ColumnMetadata column : columns) {
+            Object value = column.get(entity);
+            if (value != null) {
+                values.put(column.name, value);
+            }
+        }
+        return values;
+    }
+}
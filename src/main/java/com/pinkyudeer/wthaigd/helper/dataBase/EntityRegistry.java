@@ -0,0 +1,128 @@
+package com.pinkyudeer.wthaigd.helper.dataBase;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.pinkyudeer.wthaigd.Wthaigd;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata.ColumnMetadata;
+
+/**
+ * 实体注册表。
+ * 读取编译时由注解处理器生成的实体索引（META-INF/wthaigd/entities.idx），代替启动时扫描类路径查找 @Table 类。
+ * 索引中记录了每个实体的表名和列名，加载时与运行时解析的元数据比对，不一致说明索引已过期（通常是增量编译未重新生成），
+ * 此时以运行时元数据为准并给出警告。
+ */
+public class EntityRegistry {
+
+    /** 实体索引资源路径，与注解处理器的输出路径一致 */
+    public static final String INDEX_PATH = "META-INF/wthaigd/entities.idx";
+
+    private static volatile List<Class<?>> entities;
+
+    private EntityRegistry() {}
+
+    /**
+     * 获取包名前缀下的所有实体类。
+     *
+     * @param packagePrefix 包名前缀，如 com.pinkyudeer.wthaigd.task.entity
+     * @return 实体类列表，按类名排序
+     */
+    public static List<Class<?>> getEntities(String packagePrefix) {
+        String prefix = packagePrefix.endsWith(".") ? packagePrefix : packagePrefix + ".";
+        return getEntities().stream()
+            .filter(
+                type -> type.getName()
+                    .startsWith(prefix))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * 获取索引中的所有实体类。
+     *
+     * @return 实体类列表，按类名排序
+     */
+    public static List<Class<?>> getEntities() {
+        List<Class<?>> result = entities;
+        if (result == null) {
+            synchronized (EntityRegistry.class) {
+                result = entities;
+                if (result == null) {
+                    result = Collections.unmodifiableList(load());
+                    entities = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 加载类路径中所有的实体索引。
+     *
+     * @return 实体类列表
+     */
+    private static List<Class<?>> load() {
+        List<Class<?>> result = new ArrayList<>();
+        ClassLoader loader = EntityRegistry.class.getClassLoader();
+        try {
+            Enumeration<URL> indexes = loader.getResources(INDEX_PATH);
+            if (!indexes.hasMoreElements()) {
+                throw new IllegalStateException("未找到实体索引 " + INDEX_PATH + "，请确认构建时启用了实体索引注解处理器");
+            }
+            while (indexes.hasMoreElements()) {
+                URL url = indexes.nextElement();
+                try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.isEmpty()) result.add(resolve(line, loader));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("读取实体索引失败", e);
+        }
+        result.sort((a, b) -> a.getName()
+            .compareTo(b.getName()));
+        return result;
+    }
+
+    /**
+     * 解析索引中的一行，加载实体类并校验表名和列名。
+     *
+     * @param line   索引行：类名、表名、逗号分隔的列名，以制表符分隔
+     * @param loader 类加载器
+     * @return 实体类
+     */
+    private static Class<?> resolve(String line, ClassLoader loader) {
+        String[] parts = line.split("\t", -1);
+        if (parts.length != 3) {
+            throw new IllegalStateException("无效的实体索引行: " + line);
+        }
+        Class<?> type;
+        try {
+            type = Class.forName(parts[0], false, loader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("实体索引中的类不存在，请重新构建: " + parts[0], e);
+        }
+        EntityMetadata<?> metadata = EntityMetadata.of(type);
+        List<String> indexed = parts[2].isEmpty() ? Collections.emptyList() : Arrays.asList(parts[2].split(","));
+        List<String> actual = metadata.getColumns()
+            .stream()
+            .map(ColumnMetadata::getName)
+            .collect(Collectors.toList());
+        if (!metadata.isTable() || !metadata.getTableName()
+            .equals(parts[1]) || !indexed.equals(actual)) {
+            Wthaigd.LOG.warn("实体索引已过期，以运行时元数据为准: {}", type.getName());
+        }
+        return type;
+    }
+}
@@ -0,0 +1,104 @@
+package com.pinkyudeer.wthaigd.helper.dataBase;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata.ColumnMetadata;
+
+/**
+ * 实体快照。
+ * 按列顺序记录实体各列当前值的引用，用于之后找出被修改的列。
+ * 实体的列类型（字符串、数值、UUID、枚举、时间等）都是不可变对象，因此只需复制引用，
+ * 不需要像深度克隆那样序列化整个对象。
+ *
+ * @param <T> 实体类型
+ */
+public final class EntitySnapshot<T> {
+
+    private final EntityMetadata<T> metadata;
+    private final Object[] values;
+
+    private EntitySnapshot(EntityMetadata<T> metadata, Object[] values) {
+        this.metadata = metadata;
+        this.values = values;
+    }
+
+    /**
+     * 记录实体当前的列值。
+     *
+     * @param entity 实体对象
+     * @param <T>    实体类型
+     * @return 实体快照
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EntitySnapshot<T> of(T entity) {
+        if (entity == null) {
+            throw new IllegalArgumentException("快照的实体对象不能为null");
+        }
+        EntityMetadata<T> metadata = EntityMetadata.of((Class<T>) entity.getClass());
+        return new EntitySnapshot<>(metadata, metadata.getValues(entity));
+    }
+
+    /**
+     * 计算实体相对于快照被修改的列。
+     *
+     * @param entity 实体对象
+     * @return 被修改列的序号集合，序号与 {@link EntityMetadata#getColumns()} 一致
+     */
+    public BitSet getDirtyColumns(T entity) {
+        checkEntity(entity);
+        List<ColumnMetadata> columns = metadata.getColumns();
+        BitSet dirty = new BitSet(values.length);
+        for (int i = 0; i < values.length; i++) {
+            if (!Objects.equals(
+                values[i],
+                columns.get(i)
+                    .get(entity))) {
+                dirty.set(i);
+            }
+        }
+        return dirty;
+    }
+
+    /**
+     * 获取实体相对于快照被修改的列名和新值，包括被改为null的列。
+     *
+     * @param entity 实体对象
+     * @return 被修改的列名和新值的映射
+     */
+    public Map<String, Object> getChangedValues(T entity) {
+        BitSet dirty = getDirtyColumns(entity);
+        List<ColumnMetadata> columns = metadata.getColumns();
+        Map<String, Object> changed = new LinkedHashMap<>();
+        for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+            ColumnMetadata column = columns.get(i);
+            changed.put(column.getName(), column.get(entity));
+        }
+        return changed;
+    }
+
+    /**
+     * 实体自快照以来是否被修改。
+     *
+     * @param entity 实体对象
+     * @return 是否被修改
+     */
+    public boolean isDirty(T entity) {
+        return !getDirtyColumns(entity).isEmpty();
+    }
+
+    /**
+     * 检查实体类型与快照一致。
+     *
+     * @param entity 实体对象
+     */
+    private void checkEntity(T entity) {
+        if (entity == null || entity.getClass() != metadata.getType()) {
+            throw new IllegalArgumentException("实体对象与快照类型不一致: " + metadata.getType()
+                .getName());
+        }
+    }
+}
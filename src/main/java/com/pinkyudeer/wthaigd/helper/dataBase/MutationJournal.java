@@ -0,0 +1,594 @@
+package com.pinkyudeer.wthaigd.helper.dataBase;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import com.pinkyudeer.wthaigd.Wthaigd;
+import com.pinkyudeer.wthaigd.helper.dataBase.converter.TypeConverters;
+
+import lombok.Getter;
+
+/**
+ * 写操作日志。
+ * 内存模式下，上次快照之后的写入只存在于内存中，崩溃即丢失。本类把每次提交的写语句及其绑定参数按提交顺序追加到日志文件，
+ * 初始化时在恢复快照之后重放，使快照可以间隔很久才做一次而不丢数据。
+ * <ul>
+ * <li>一次提交（单条自动提交的写语句或一个完整事务）写为一帧，帧带有递增的序号和 CRC 校验，
+ * 崩溃时写了一半的末尾帧在重放时被丢弃</li>
+ * <li>最后提交的序号与数据同事务写入数据库中的 {@code wthaigd_journal_state} 表，快照中因此记录了它包含的最后一帧，
+ * 重放时跳过这些帧，快照完成后把它们从日志中删除</li>
+ * <li>帧先写入内存缓冲区，由后台线程按固定间隔统一写入文件并同步到磁盘（组提交），数据库线程不等待磁盘；
+ * 崩溃时最多丢失最近一个间隔内的提交</li>
+ * </ul>
+ * 参数以数据库存储值（整数、浮点数、文本、二进制）记录，重放时不依赖实体类型。
+ * 记录和提交相关的方法只能在数据库线程上调用，写盘、截断和关闭可以在任意线程调用。
+ */
+public class MutationJournal {
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_INTEGER = 1;
+    private static final byte TAG_REAL = 2;
+    private static final byte TAG_TEXT = 3;
+    private static final byte TAG_BLOB = 4;
+
+    private static final String[] MUTATION_KEYWORDS = { "INSERT", "UPDATE", "DELETE", "REPLACE", "CREATE", "DROP",
+        "ALTER" };
+
+    /**
+     * 日志帧，即一次提交中的所有写语句。
+     */
+    @Getter
+    public static final class Frame {
+
+        private final long lsn;
+        private final List<String> statements;
+        private final List<Object[]> params;
+
+        private Frame(long lsn, List<String> statements, List<Object[]> params) {
+            this.lsn = lsn;
+            this.statements = statements;
+            this.params = params;
+        }
+    }
+
+    /**
+     * 帧处理函数
+     */
+    @FunctionalInterface
+    public interface FrameHandler {
+
+        void apply(Frame frame);
+    }
+
+    /**
+     * 重放结果
+     */
+    @Getter
+    public static final class ReplayResult {
+
+        /** 最后一个完整帧的结束位置，之后的内容为写了一半的帧 */
+        private final long validLength;
+        /** 日志中最后一帧的序号，日志为空时为0 */
+        private final long lastLsn;
+        /** 实际重放的帧数 */
+        private final int replayed;
+
+        private ReplayResult(long validLength, long lastLsn, int replayed) {
+            this.validLength = validLength;
+            this.lastLsn = lastLsn;
+            this.replayed = replayed;
+        }
+    }
+
+    // 以下状态只在数据库线程上访问
+    private static final List<String> pendingStatements = new ArrayList<>();
+    private static final List<Object[]> pendingParams = new ArrayList<>();
+    private static long nextLsn = 1;
+    private static final Object[] captured = new Object[1];
+    // 记录转换器写入的存储值，而不是真正绑定参数
+    private static final PreparedStatement CAPTURE = (PreparedStatement) Proxy.newProxyInstance(
+        PreparedStatement.class.getClassLoader(),
+        new Class<?>[] { PreparedStatement.class },
+        (proxy, method, args) -> {
+            if (method.getName()
+                .startsWith("set") && args != null
+                && args.length >= 2) {
+                captured[0] = method.getName()
+                    .equals("setNull") ? null : args[1];
+                return null;
+            }
+            throw new UnsupportedOperationException("记录参数时不支持的方法: " + method.getName());
+        });
+
+    // 待写盘的帧和最后一帧的序号，由 MutationJournal.class 锁保护，只做短暂的内存操作
+    private static ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private static long lastLsn = 0;
+    // 文件读写由 FILE_LOCK 保护，写盘期间数据库线程仍可以继续追加帧
+    private static final Object FILE_LOCK = new Object();
+    private static File file;
+    private static FileChannel channel;
+    private static ScheduledExecutorService flusher;
+    private static volatile boolean open = false;
+
+    private MutationJournal() {}
+
+    /**
+     * 语句是否为需要记录的写语句。
+     *
+     * @param sql SQL 语句
+     * @return 以 INSERT/UPDATE/DELETE/REPLACE/CREATE/DROP/ALTER 开头时返回true
+     */
+    public static boolean isMutation(String sql) {
+        String head = sql.trim();
+        head = head.substring(0, Math.min(head.length(), 8))
+            .toUpperCase(Locale.ROOT);
+        for (String keyword : MUTATION_KEYWORDS) {
+            if (head.startsWith(keyword)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 打开日志文件用于追加，并启动后台写盘线程。
+     *
+     * @param journalFile     日志文件
+     * @param validLength     日志中完整帧的长度，之后的内容会被截掉
+     * @param lastLsn         已使用的最大序号
+     * @param flushIntervalMs 写盘间隔（毫秒）
+     * @throws IOException 当打开文件失败时抛出
+     */
+    public static void open(File journalFile, long validLength, long lastLsn, int flushIntervalMs)
+        throws IOException {
+        close();
+        synchronized (FILE_LOCK) {
+            file = journalFile;
+            channel = FileChannel.open(
+                journalFile.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+            if (channel.size() > validLength) {
+                Wthaigd.LOG.warn("截掉日志末尾不完整的帧: {} 字节", channel.size() - validLength);
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+            channel.position(validLength);
+        }
+        synchronized (MutationJournal.class) {
+            MutationJournal.lastLsn = lastLsn;
+            buffer = new ByteArrayOutputStream();
+        }
+        nextLsn = lastLsn + 1;
+        rollbackTo(0);
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wthaigd-db-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(MutationJournal::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        open = true;
+    }
+
+    /**
+     * 日志是否已打开。
+     *
+     * @return 已打开时返回true
+     */
+    public static boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * 记录一条已执行成功的写语句，在所属事务提交时写入日志。日志未打开时不做任何事。
+     *
+     * @param sql    SQL 语句
+     * @param params 绑定参数
+     */
+    public static void record(String sql, Object[] params) {
+        if (!isOpen()) return;
+        Object[] values = new Object[params.length];
+        for (int i = 0; i < params.length; i++) {
+            values[i] = toStorageValue(params[i]);
+        }
+        pendingStatements.add(sql);
+        pendingParams.add(values);
+    }
+
+    /**
+     * 获取当前事务中已记录的语句数量，用于回滚到保存点时丢弃之后记录的语句。
+     *
+     * @return 已记录的语句数量
+     */
+    public static int mark() {
+        return pendingStatements.size();
+    }
+
+    /**
+     * 丢弃指定位置之后记录的语句。
+     *
+     * @param mark {@link #mark()} 的返回值，0 表示丢弃整个事务
+     */
+    public static void rollbackTo(int mark) {
+        while (pendingStatements.size() > mark) {
+            pendingStatements.remove(pendingStatements.size() - 1);
+            pendingParams.remove(pendingParams.size() - 1);
+        }
+    }
+
+    /**
+     * 为即将提交的事务分配序号。调用方需要在同一事务中把序号写入数据库，提交成功后调用 {@link #commit(long)}。
+     *
+     * @return 序号，事务中没有写语句时返回0
+     */
+    public static long prepareCommit() {
+        if (pendingStatements.isEmpty() || !isOpen()) return 0;
+        return nextLsn++;
+    }
+
+    /**
+     * 事务提交成功后把其中的写语句作为一帧追加到写盘缓冲区。
+     *
+     * @param lsn {@link #prepareCommit()} 分配的序号
+     */
+    public static void commit(long lsn) {
+        if (lsn <= 0) return;
+        byte[] frame;
+        try {
+            frame = encode(lsn, pendingStatements, pendingParams);
+        } catch (IOException e) {
+            throw new RuntimeException("编码日志帧失败", e);
+        } finally {
+            rollbackTo(0);
+        }
+        synchronized (MutationJournal.class) {
+            buffer.write(frame, 0, frame.length);
+            lastLsn = lsn;
+        }
+    }
+
+    /**
+     * 把缓冲区中的帧写入文件并同步到磁盘。两次写盘之间的所有提交共用一次同步。
+     */
+    public static void flush() {
+        synchronized (FILE_LOCK) {
+            if (channel == null) return;
+            byte[] frames;
+            synchronized (MutationJournal.class) {
+                if (buffer.size() == 0) return;
+                frames = buffer.toByteArray();
+                buffer.reset();
+            }
+            try {
+                ByteBuffer data = ByteBuffer.wrap(frames);
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                Wthaigd.LOG.error("写入日志失败", e);
+            }
+        }
+    }
+
+    /**
+     * 快照完成后删除快照中已经包含的帧。可以在任意线程调用。
+     *
+     * @param lsn 快照包含的最后一帧的序号
+     */
+    public static void truncateThrough(long lsn) {
+        synchronized (FILE_LOCK) {
+            if (channel == null) return;
+            flush();
+            truncateFile(lsn);
+        }
+    }
+
+    /**
+     * 删除文件中序号不大于 lsn 的帧，调用方需持有 FILE_LOCK。
+     *
+     * @param lsn 快照包含的最后一帧的序号
+     */
+    private static void truncateFile(long lsn) {
+        long last;
+        synchronized (MutationJournal.class) {
+            last = lastLsn;
+        }
+        try {
+            if (lsn >= last) {
+                channel.truncate(0);
+                channel.position(0);
+                channel.force(true);
+                return;
+            }
+            // 快照进行期间仍有提交，保留快照之后的帧。先写入临时文件再原子替换，
+            // 替换前崩溃时旧日志仍然完整，其中已在快照中的帧会在重放时跳过
+            ByteArrayOutputStream kept = new ByteArrayOutputStream();
+            channel.position(0);
+            read(Channels.newInputStream(channel), channel.size(), lsn, frame -> {
+                try {
+                    kept.write(encode(frame.lsn, frame.statements, frame.params));
+                } catch (IOException e) {
+                    throw new RuntimeException("编码日志帧失败", e);
+                }
+            });
+            Path journal = file.toPath();
+            Path temp = journal.resolveSibling(file.getName() + ".tmp");
+            try (FileChannel out = FileChannel.open(
+                temp,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+                ByteBuffer data = ByteBuffer.wrap(kept.toByteArray());
+                while (data.hasRemaining()) {
+                    out.write(data);
+                }
+                out.force(true);
+            }
+            channel.close();
+            Files.move(temp, journal, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            channel = FileChannel.open(journal, StandardOpenOption.WRITE, StandardOpenOption.READ);
+            channel.position(channel.size());
+        } catch (IOException e) {
+            Wthaigd.LOG.error("截断日志失败", e);
+            reopenAfterFailedTruncate();
+        }
+    }
+
+    /**
+     * 截断失败后确保日志仍可追加：原通道已关闭时重新打开日志文件。调用方需持有 FILE_LOCK。
+     */
+    private static void reopenAfterFailedTruncate() {
+        if (channel.isOpen()) return;
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.READ);
+            channel.position(channel.size());
+        } catch (IOException e) {
+            Wthaigd.LOG.error("重新打开日志失败，快照之间的写入在崩溃时将会丢失", e);
+            channel = null;
+        }
+    }
+
+    /**
+     * 写入剩余的帧并关闭日志文件。日志为空时删除文件。
+     */
+    public static void close() {
+        open = false;
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flusher = null;
+        }
+        synchronized (FILE_LOCK) {
+            if (channel == null) return;
+            flush();
+            try {
+                boolean empty = channel.size() == 0;
+                channel.close();
+                if (empty && !file.delete()) {
+                    Wthaigd.LOG.warn("删除空日志文件失败: {}", file);
+                }
+            } catch (IOException e) {
+                Wthaigd.LOG.error("关闭日志失败", e);
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * 读取日志文件，对序号大于 appliedLsn 的每一帧调用处理函数。
+     * 遇到写了一半或校验失败的帧时停止读取。
+     *
+     * @param journalFile 日志文件
+     * @param appliedLsn  数据库中已包含的最后一帧的序号
+     * @param handler     帧处理函数
+     * @return 重放结果
+     */
+    public static ReplayResult replay(File journalFile, long appliedLsn, FrameHandler handler) {
+        if (!journalFile.exists()) return new ReplayResult(0, 0, 0);
+        try (InputStream in = new FileInputStream(journalFile)) {
+            return read(in, journalFile.length(), appliedLsn, handler);
+        } catch (IOException e) {
+            throw new RuntimeException("读取日志失败: " + journalFile, e);
+        }
+    }
+
+    /**
+     * 从输入流读取日志帧。帧长度超出剩余字节数时视为写了一半的末尾帧，不按该长度分配内存。
+     *
+     * @param in         输入流
+     * @param size       输入的总字节数
+     * @param appliedLsn 跳过序号不大于该值的帧
+     * @param handler    帧处理函数
+     * @return 读取结果
+     * @throws IOException 当读取失败时抛出
+     */
+    private static ReplayResult read(InputStream in, long size, long appliedLsn, FrameHandler handler)
+        throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        long validLength = 0;
+        long last = 0;
+        int replayed = 0;
+        while (true) {
+            byte[] payload;
+            try {
+                int length = data.readInt();
+                // 长度之后还有内容和4字节的 CRC
+                if (length <= 0 || length > size - validLength - 8) break;
+                payload = new byte[length];
+                data.readFully(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload, 0, payload.length);
+                if ((int) crc.getValue() != data.readInt()) break;
+            } catch (EOFException e) {
+                break;
+            }
+            Frame frame = decode(payload);
+            validLength += payload.length + 8;
+            last = frame.lsn;
+            if (frame.lsn > appliedLsn) {
+                handler.apply(frame);
+                replayed++;
+            }
+        }
+        return new ReplayResult(validLength, last, replayed);
+    }
+
+    /**
+     * 把参数转换为数据库存储值。
+     *
+     * @param value 参数值
+     * @return null、Long、Double、String 或 byte[]
+     */
+    private static Object toStorageValue(Object value) {
+        if (value == null) return null;
+        captured[0] = null;
+        try {
+            TypeConverters.bind(CAPTURE, 1, value);
+        } catch (SQLException e) {
+            throw new RuntimeException("记录参数失败: " + value, e);
+        }
+        Object stored = captured[0];
+        if (stored == null || stored instanceof String || stored instanceof byte[]) return stored;
+        if (stored instanceof Boolean bool) return bool ? 1L : 0L;
+        if (stored instanceof Float || stored instanceof Double) return ((Number) stored).doubleValue();
+        if (stored instanceof Number number && !(stored instanceof BigDecimal)) return number.longValue();
+        return stored.toString();
+    }
+
+    /**
+     * 编码一帧：长度、内容（序号、语句数、每条语句的SQL和参数）、CRC。
+     *
+     * @param lsn        序号
+     * @param statements 语句
+     * @param params     每条语句的参数
+     * @return 帧字节
+     * @throws IOException 当编码失败时抛出
+     */
+    private static byte[] encode(long lsn, List<String> statements, List<Object[]> params) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(lsn);
+        out.writeInt(statements.size());
+        for (int i = 0; i < statements.size(); i++) {
+            writeBytes(
+                out,
+                statements.get(i)
+                    .getBytes(StandardCharsets.UTF_8));
+            Object[] values = params.get(i);
+            out.writeInt(values.length);
+            for (Object value : values) {
+                writeValue(out, value);
+            }
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(payload.length + 8);
+        DataOutputStream frameOut = new DataOutputStream(frame);
+        frameOut.writeInt(payload.length);
+        frameOut.write(payload);
+        frameOut.writeInt((int) crc.getValue());
+        return frame.toByteArray();
+    }
+
+    /**
+     * 解码一帧的内容。
+     *
+     * @param payload 帧内容
+     * @return 日志帧
+     * @throws IOException 当解码失败时抛出
+     */
+    private static Frame decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long lsn = in.readLong();
+        int count = in.readInt();
+        List<String> statements = new ArrayList<>(count);
+        List<Object[]> params = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            statements.add(new String(readBytes(in), StandardCharsets.UTF_8));
+            Object[] values = new Object[in.readInt()];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = readValue(in);
+            }
+            params.add(values);
+        }
+        return new Frame(lsn, statements, params);
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof Long number) {
+            out.writeByte(TAG_INTEGER);
+            out.writeLong(number);
+        } else if (value instanceof Double number) {
+            out.writeByte(TAG_REAL);
+            out.writeDouble(number);
+        } else if (value instanceof byte[] blob) {
+            out.writeByte(TAG_BLOB);
+            writeBytes(out, blob);
+        } else {
+            out.writeByte(TAG_TEXT);
+            writeBytes(
+                out,
+                value.toString()
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_INTEGER:
+                return in.readLong();
+            case TAG_REAL:
+                return in.readDouble();
+            case TAG_TEXT:
+                return new String(readBytes(in), StandardCharsets.UTF_8);
+            case TAG_BLOB:
+                return readBytes(in);
+            default:
+                throw new IOException("未知的日志参数类型: " + tag);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,33 @@
+package com.pinkyudeer.wthaigd.helper.dataBase;
+
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * 键集分页的一页结果。
+ * 续页令牌记录了本页最后一行的排序键，传给下一次查询即可从该位置继续，
+ * 令牌对调用方是不透明的字符串，可以原样保存或发送给客户端。
+ *
+ * @param <T> 实体类型
+ */
+@Getter
+public final class Page<T> {
+
+    private final List<T> items;
+    private final String nextToken;
+
+    public Page(List<T> items, String nextToken) {
+        this.items = items;
+        this.nextToken = nextToken;
+    }
+
+    /**
+     * 是否还有下一页。
+     *
+     * @return 有下一页时返回true
+     */
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+}
@@ -0,0 +1,319 @@
+package com.pinkyudeer.wthaigd.helper.dataBase;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.objenesis.instantiator.ObjectInstantiator;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
+import com.pinkyudeer.wthaigd.helper.UtilHelper;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata.ColumnMetadata;
+import com.pinkyudeer.wthaigd.helper.dataBase.converter.TypeConverter;
+
+/**
+ * 投影映射器。
+ * 将查询的部分列映射到调用方提供的轻量视图类型，不构造完整的实体对象：
+ * <ul>
+ * <li>视图为接口时，生成只读代理，无参方法按方法名（getXxx/isXxx/xxx）对应列</li>
+ * <li>视图为类时，跳过构造函数直接分配对象，按字段名对应列并赋值，字段初始值和构造函数中的逻辑不会执行</li>
+ * </ul>
+ * 成员名可以是实体的字段名（如 taskType）或列名（如 task_type）。
+ * 成员的类型必须能接收列的 Java 类型（允许装箱和拆箱），否则创建映射器时即抛出异常；
+ * 基本类型的成员在列为 NULL 时取默认值（0 或 false）。
+ * 映射器按 (视图类型, 查询列) 缓存，列与成员的对应关系只在创建时解析一次。
+ *
+ * @param <V> 视图类型
+ */
+public final class ProjectionMapper<V> {
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final StdInstantiatorStrategy INSTANTIATOR_STRATEGY = new StdInstantiatorStrategy();
+    private static final Map<Class<?>, Map<String, ProjectionMapper<?>>> MAPPERS = new ConcurrentHashMap<>();
+
+    private final Class<V> viewType;
+    private final TypeConverter<Object>[] converters;
+    // 类视图
+    private final ObjectInstantiator<V> instantiator;
+    private final MethodHandle[] setters;
+    private final boolean[] primitive;
+    // 接口视图：方法到列序号，以及返回基本类型的方法在列为 NULL 时的默认值
+    private final Map<Method, Integer> accessors;
+    private final Map<Method, Object> nullDefaults;
+
+    @SuppressWarnings("unchecked")
+    private ProjectionMapper(Class<V> viewType, List<ColumnMetadata> columns) {
+        this.viewType = viewType;
+        this.converters = new TypeConverter[columns.size()];
+        for (int i = 0; i < converters.length; i++) {
+            converters[i] = columns.get(i)
+                .getConverter();
+        }
+        if (viewType.isInterface()) {
+            this.instantiator = null;
+            this.setters = null;
+            this.primitive = null;
+            this.accessors = resolveAccessors(viewType, columns);
+            this.nullDefaults = new HashMap<>();
+            for (Method method : accessors.keySet()) {
+                Class<?> returnType = method.getReturnType();
+                if (returnType.isPrimitive()) {
+                    nullDefaults.put(method, Array.get(Array.newInstance(returnType, 1), 0));
+                }
+            }
+        } else {
+            this.instantiator = INSTANTIATOR_STRATEGY.newInstantiatorOf(viewType);
+            this.setters = new MethodHandle[columns.size()];
+            this.primitive = new boolean[columns.size()];
+            this.accessors = null;
+            this.nullDefaults = null;
+            resolveSetters(columns);
+        }
+    }
+
+    /**
+     * 获取视图类型在指定查询列上的映射器。
+     *
+     * @param viewType 视图类型（接口或类）
+     * @param columns  查询列，顺序与结果集列顺序一致
+     * @param <V>      视图类型
+     * @return 投影映射器
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> ProjectionMapper<V> of(Class<V> viewType, List<ColumnMetadata> columns) {
+        StringBuilder shape = new StringBuilder();
+        for (ColumnMetadata column : columns) {
+            shape.append(
+                column.getField()
+                    .getDeclaringClass()
+                    .getName())
+                .append('.')
+                .append(column.getName())
+                .append('\u0000');
+        }
+        return (ProjectionMapper<V>) MAPPERS.computeIfAbsent(viewType, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(shape.toString(), k -> new ProjectionMapper<>(viewType, columns));
+    }
+
+    /**
+     * 按列的类型转换器读取当前行的所有列。
+     *
+     * @param rs         结果集
+     * @param converters 每列的类型转换器
+     * @return 列值数组
+     * @throws SQLException 当读取失败时抛出
+     */
+    public static Object[] readRow(ResultSet rs, TypeConverter<Object>[] converters) throws SQLException {
+        Object[] values = new Object[converters.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = converters[i].read(rs, i + 1);
+        }
+        return values;
+    }
+
+    /**
+     * 将结果集当前行映射为视图对象。调用方需要确保结果集已定位到一行数据。
+     *
+     * @param rs 结果集
+     * @return 视图对象
+     * @throws SQLException 当读取或赋值失败时抛出
+     */
+    public V map(ResultSet rs) throws SQLException {
+        return map(readRow(rs, converters));
+    }
+
+    /**
+     * 将已读取的一行列值映射为视图对象，列值顺序与创建映射器时的查询列一致。
+     * 接口视图直接引用该数组，调用方之后不应再修改它。
+     *
+     * @param values 列值数组
+     * @return 视图对象
+     * @throws SQLException 当赋值失败时抛出
+     */
+    public V map(Object[] values) throws SQLException {
+        if (accessors != null) {
+            return viewType.cast(
+                Proxy.newProxyInstance(
+                    viewType.getClassLoader(),
+                    new Class<?>[] { viewType },
+                    (proxy, method, args) -> invoke(proxy, values, method, args)));
+        }
+        V view = instantiator.newInstance();
+        for (int i = 0; i < setters.length; i++) {
+            if (setters[i] == null || values[i] == null && primitive[i]) continue;
+            try {
+                setters[i].invokeExact((Object) view, values[i]);
+            } catch (Throwable e) {
+                throw new SQLException("Error mapping ResultSet to " + viewType.getName(), e);
+            }
+        }
+        return view;
+    }
+
+    /**
+     * 处理接口视图代理上的方法调用。
+     *
+     * @param proxy  代理对象
+     * @param values 当前行的列值
+     * @param method 被调用的方法
+     * @param args   调用参数
+     * @return 方法返回值
+     */
+    private Object invoke(Object proxy, Object[] values, Method method, Object[] args) {
+        Integer index = accessors.get(method);
+        if (index != null) {
+            Object value = values[index];
+            return value == null ? nullDefaults.get(method) : value;
+        }
+        switch (method.getName()) {
+            case "toString":
+                return viewType.getSimpleName() + Arrays.toString(values);
+            case "hashCode":
+                return Arrays.hashCode(values);
+            case "equals":
+                return proxy == args[0];
+            default:
+                throw new UnsupportedOperationException("投影视图不支持的方法: " + method);
+        }
+    }
+
+    /**
+     * 解析接口视图的访问方法，每个无参的抽象方法都必须对应一个查询列，且返回类型能接收列的类型。
+     *
+     * @param viewType 视图接口
+     * @param columns  查询列
+     * @return 方法到列序号的映射
+     */
+    private static Map<Method, Integer> resolveAccessors(Class<?> viewType, List<ColumnMetadata> columns) {
+        Map<Method, Integer> result = new HashMap<>();
+        for (Method method : viewType.getMethods()) {
+            if (method.isDefault() || Modifier.isStatic(method.getModifiers()) || isObjectMethod(method)) continue;
+            int index = method.getParameterCount() == 0 ? indexOf(columns, propertyName(method.getName())) : -1;
+            if (index < 0) {
+                throw new IllegalArgumentException("投影接口的方法没有对应的查询列: " + method);
+            }
+            checkType(viewType, method.getReturnType(), columns.get(index));
+            result.put(method, index);
+        }
+        return result;
+    }
+
+    /**
+     * 方法是否为 Object 中声明的方法（接口可以重新声明 toString 等方法）。
+     *
+     * @param method 方法
+     * @return 是 Object 的方法时返回true
+     */
+    private static boolean isObjectMethod(Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析类视图的字段赋值句柄，每个查询列都必须对应一个字段。
+     *
+     * @param columns 查询列
+     */
+    private void resolveSetters(List<ColumnMetadata> columns) {
+        Map<String, Field> fields = new HashMap<>();
+        for (Field field : UtilHelper.getAllFieldsReverse(viewType)) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                fields.put(field.getName(), field);
+            }
+        }
+        for (int i = 0; i < setters.length; i++) {
+            ColumnMetadata column = columns.get(i);
+            Field field = fields.get(
+                column.getField()
+                    .getName());
+            if (field == null) field = fields.get(column.getName());
+            if (field == null) {
+                throw new IllegalArgumentException("投影类 " + viewType.getName() + " 中没有对应列的字段: " + column.getName());
+            }
+            checkType(viewType, field.getType(), column);
+            try {
+                field.setAccessible(true);
+                setters[i] = MethodHandles.lookup()
+                    .unreflectSetter(field)
+                    .asType(SETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("无法访问字段: " + field.getName(), e);
+            }
+            primitive[i] = field.getType()
+                .isPrimitive();
+        }
+    }
+
+    /**
+     * 检查视图成员的类型能否接收列值，允许装箱和拆箱。
+     *
+     * @param viewType   视图类型
+     * @param memberType 方法返回类型或字段类型
+     * @param column     对应的列
+     * @throws IllegalArgumentException 当类型不兼容时抛出
+     */
+    private static void checkType(Class<?> viewType, Class<?> memberType, ColumnMetadata column) {
+        if (!ClassUtils.isAssignable(column.getJavaType(), memberType, true)) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "投影 %s 中列 %s 的类型不匹配: 需要 %s，实际为 %s",
+                    viewType.getName(),
+                    column.getName(),
+                    column.getJavaType()
+                        .getName(),
+                    memberType.getName()));
+        }
+    }
+
+    /**
+     * 查找名称对应的列，名称可以是实体字段名或列名。
+     *
+     * @param columns 查询列
+     * @param name    字段名或列名
+     * @return 列序号，找不到时返回-1
+     */
+    private static int indexOf(List<ColumnMetadata> columns, String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnMetadata column = columns.get(i);
+            if (column.getField()
+                .getName()
+                .equals(name)
+                || column.getName()
+                    .equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 由访问方法名得到属性名：getTitle/isDone 去掉前缀并首字母小写，其余方法名原样使用。
+     *
+     * @param methodName 方法名
+     * @return 属性名
+     */
+    private static String propertyName(String methodName) {
+        int prefix = methodName.startsWith("get") ? 3 : methodName.startsWith("is") ? 2 : 0;
+        if (prefix == 0 || methodName.length() == prefix || !Character.isUpperCase(methodName.charAt(prefix))) {
+            return methodName;
+        }
+        return Character.toLowerCase(methodName.charAt(prefix)) + methodName.substring(prefix + 1);
+    }
+}
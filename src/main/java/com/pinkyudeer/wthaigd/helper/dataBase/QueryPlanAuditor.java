@@ -0,0 +1,394 @@
+package com.pinkyudeer.wthaigd.helper.dataBase;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.pinkyudeer.wthaigd.Wthaigd;
+import com.pinkyudeer.wthaigd.helper.config.ConfigHelper;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata.ColumnMetadata;
+
+/**
+ * 查询计划审计器。
+ * 调试模式下对构建器产生的每一种 SQL（参数化后的 SQL 文本即为其形态）执行一次 EXPLAIN QUERY PLAN，
+ * 记录其中的全表扫描、临时 B 树和自动索引以及发起查询的调用位置，并根据 WHERE/ORDER BY 中的列给出
+ * {@code @Column(index = ...)} 的建议。报告通过 /entity test sql 输出。
+ * 未开启调试模式时只有一次 volatile 读取的开销。
+ */
+public class QueryPlanAuditor {
+
+    private static final String DATABASE_PACKAGE = "com.pinkyudeer.wthaigd.helper.dataBase";
+    /** 最多记录的 SQL 形态数，IN 列表长度不同等情况会产生大量形态 */
+    private static final int MAX_SHAPES = 1024;
+    /** 每种形态最多记录的调用位置数 */
+    private static final int MAX_CALL_SITES = 5;
+    /** 报告中最多列出的形态数 */
+    private static final int MAX_REPORTED = 20;
+    // SCAN t、SCAN TABLE t（3.36 之前）、SCAN t USING [COVERING] INDEX i
+    private static final Pattern SCAN = Pattern.compile("^SCAN (?:TABLE )?(\\w+)(.*)$");
+    private static final Pattern SEARCH = Pattern.compile("^SEARCH (?:TABLE )?(\\w+)(.*)$");
+    private static final Pattern CLAUSE_END = Pattern.compile("\\b(?:GROUP BY|ORDER BY|LIMIT|HAVING)\\b");
+
+    /**
+     * 一种 SQL 形态的审计记录
+     */
+    private static final class Shape {
+
+        private final String sql;
+        private final AtomicLong executions = new AtomicLong();
+        private final Set<String> callSites = Collections.synchronizedSet(new LinkedHashSet<>());
+        /** 查询计划中的问题，尚未分析时为null */
+        private volatile List<String> findings;
+        private volatile List<String> suggestions = Collections.emptyList();
+
+        private Shape(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    private static final Map<String, Shape> SHAPES = new ConcurrentHashMap<>();
+    /** 交给数据库线程执行的任务在调用方线程上记录的调用位置 */
+    private static final ThreadLocal<String> CALL_SITE = new ThreadLocal<>();
+    private static volatile boolean enabled = false;
+    private static volatile Map<String, EntityMetadata<?>> tables;
+
+    private QueryPlanAuditor() {}
+
+    /**
+     * 清空审计记录并重新读取调试模式配置，在每次打开世界数据库时调用。
+     */
+    public static void reset() {
+        SHAPES.clear();
+        enabled = ConfigHelper.getBoolean("debugMode", false);
+    }
+
+    /**
+     * 是否启用了查询计划审计。
+     *
+     * @return 调试模式下返回true
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 包装要交给数据库线程执行的任务，在当前（调用方）线程上记录调用位置。
+     * 任务在数据库线程上执行时，其中的查询都归到这个调用位置；数据库线程的调用栈中没有业务代码的栈帧，
+     * 因此构建器在把查询交给数据库线程之前都应通过本方法包装。已在包装的任务中时沿用外层的调用位置。
+     * 未启用审计时原样返回任务。
+     *
+     * @param task 数据库任务
+     * @param <R>  结果类型
+     * @return 包装后的任务
+     */
+    public static <R> Supplier<R> traced(Supplier<R> task) {
+        if (!enabled) return task;
+        String outer = CALL_SITE.get();
+        String site = outer != null ? outer : callSite();
+        return () -> {
+            String previous = CALL_SITE.get();
+            CALL_SITE.set(site);
+            try {
+                return task.get();
+            } finally {
+                if (previous == null) {
+                    CALL_SITE.remove();
+                } else {
+                    CALL_SITE.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * 记录一次查询及其调用位置，首次出现的形态在数据库线程上分析查询计划。
+     * 在 {@link #traced} 包装的任务中使用调用方线程上记录的调用位置，否则从当前调用栈中查找。
+     *
+     * @param sql    SQL 语句
+     * @param params SQL 参数，用于编译 EXPLAIN 语句
+     */
+    static void record(String sql, Object[] params) {
+        if (!enabled || !isAuditable(sql)) return;
+        Shape shape = SHAPES.get(sql);
+        boolean created = false;
+        if (shape == null) {
+            if (SHAPES.size() >= MAX_SHAPES) return;
+            Shape fresh = new Shape(sql);
+            shape = SHAPES.putIfAbsent(sql, fresh);
+            if (shape == null) {
+                shape = fresh;
+                created = true;
+            }
+        }
+        shape.executions.incrementAndGet();
+        if (shape.callSites.size() < MAX_CALL_SITES) {
+            String site = CALL_SITE.get();
+            shape.callSites.add(site != null ? site : callSite());
+        }
+        if (created) {
+            Shape target = shape;
+            DataBaseExecutor.submit(() -> {
+                explain(target, params);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 是否为需要审计的语句：查询以及带条件的更新和删除都可能扫描全表。
+     *
+     * @param sql SQL 语句
+     * @return 需要审计时返回true
+     */
+    private static boolean isAuditable(String sql) {
+        String head = sql.trim();
+        int length = Math.min(head.length(), 6);
+        String keyword = head.substring(0, length)
+            .toUpperCase(Locale.ROOT);
+        return keyword.startsWith("SELECT") || keyword.startsWith("WITH")
+            || keyword.startsWith("UPDATE")
+            || keyword.startsWith("DELETE");
+    }
+
+    /**
+     * 从当前调用栈中找到数据库包之外的第一个业务调用位置。
+     *
+     * @return 调用位置
+     */
+    private static String callSite() {
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            String className = frame.getClassName();
+            if (className.startsWith(DATABASE_PACKAGE) || className.startsWith("java.")
+                || className.startsWith("sun.")
+                || className.startsWith("jdk.")) {
+                continue;
+            }
+            String simpleName = className.substring(className.lastIndexOf('.') + 1);
+            return simpleName + "."
+                + frame.getMethodName()
+                + "("
+                + frame.getFileName()
+                + ":"
+                + frame.getLineNumber()
+                + ")";
+        }
+        return "数据库线程内部调用";
+    }
+
+    /**
+     * 在数据库线程上执行 EXPLAIN QUERY PLAN 并分析结果。
+     *
+     * @param shape  SQL 形态
+     * @param params SQL 参数
+     */
+    private static void explain(Shape shape, Object[] params) {
+        List<String> details = new ArrayList<>();
+        try (PreparedStatement ps = SQLiteManager.prepareUncached("EXPLAIN QUERY PLAN " + shape.sql, params);
+            ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                details.add(rs.getString("detail"));
+            }
+        } catch (SQLException | RuntimeException e) {
+            Wthaigd.LOG.debug("分析查询计划失败: {}", shape.sql, e);
+            shape.findings = Collections.singletonList("无法分析查询计划: " + e.getMessage());
+            return;
+        }
+
+        // 没有过滤条件的语句本来就要读取全表，只关心临时B树
+        boolean filtered = shape.sql.toUpperCase(Locale.ROOT)
+            .contains(" WHERE ");
+        List<String> findings = new ArrayList<>();
+        Set<String> scannedTables = new LinkedHashSet<>();
+        boolean tempOrderBy = false;
+        for (String detail : details) {
+            Matcher scan = SCAN.matcher(detail);
+            if (scan.matches() && getTables().containsKey(scan.group(1))) {
+                if (!filtered) continue;
+                boolean usesIndex = scan.group(2)
+                    .contains("INDEX");
+                findings.add((usesIndex ? "全索引扫描: " : "全表扫描: ") + detail);
+                if (!usesIndex) scannedTables.add(scan.group(1));
+            } else if (detail.contains("TEMP B-TREE")) {
+                findings.add("临时B树: " + detail);
+                tempOrderBy |= detail.contains("ORDER BY");
+            } else if (detail.contains("AUTOMATIC")) {
+                findings.add("自动索引（缺少索引）: " + detail);
+                Matcher search = SEARCH.matcher(detail);
+                if (search.matches()) scannedTables.add(search.group(1));
+            }
+        }
+        shape.suggestions = suggest(shape.sql, scannedTables, tempOrderBy);
+        shape.findings = findings;
+        if (!findings.isEmpty()) {
+            Wthaigd.LOG.warn("查询计划存在问题: {} -> {}", shape.sql, findings);
+        }
+    }
+
+    /**
+     * 根据被扫描的表在 WHERE（以及需要临时 B 树排序时的 ORDER BY）中出现的列给出索引建议。
+     *
+     * @param sql           SQL 语句
+     * @param scannedTables 被全表扫描或需要自动索引的表
+     * @param tempOrderBy   是否需要临时 B 树排序
+     * @return 建议列表
+     */
+    private static List<String> suggest(String sql, Set<String> scannedTables, boolean tempOrderBy) {
+        String upper = sql.toUpperCase(Locale.ROOT);
+        int where = upper.indexOf(" WHERE ");
+        if (where < 0) return Collections.emptyList();
+        Matcher end = CLAUSE_END.matcher(upper);
+        int whereEnd = end.find(where) ? end.start() : upper.length();
+        String whereClause = sql.substring(where, whereEnd);
+        int orderBy = upper.indexOf(" ORDER BY ", where);
+        String orderClause = tempOrderBy && orderBy >= 0 ? sql.substring(orderBy) : "";
+
+        List<String> suggestions = new ArrayList<>();
+        for (String table : scannedTables) {
+            EntityMetadata<?> metadata = getTables().get(table);
+            List<ColumnMetadata> columns = new ArrayList<>();
+            for (ColumnMetadata column : metadata.getColumns()) {
+                if (mentions(whereClause, column.getName()) || mentions(orderClause, column.getName())) {
+                    columns.add(column);
+                }
+            }
+            if (columns.isEmpty()) continue;
+            List<ColumnMetadata> unindexed = columns.stream()
+                .filter(column -> !isLeadingIndexColumn(metadata, column))
+                .collect(Collectors.toList());
+            if (unindexed.isEmpty()) {
+                suggestions.add(table + " 的条件列已有索引但未被使用，检查条件中是否对列使用了函数、前缀通配的 LIKE 或 OR");
+                continue;
+            }
+            String fields = unindexed.stream()
+                .map(
+                    column -> metadata.getType()
+                        .getSimpleName() + "."
+                        + column.getField()
+                            .getName())
+                .collect(Collectors.joining(", "));
+            String indexName = "idx_" + table
+                + "_"
+                + unindexed.stream()
+                    .map(ColumnMetadata::getName)
+                    .collect(Collectors.joining("_"));
+            String advice = "在 " + fields + " 上添加 @Column(index = {\"" + indexName + "\"})";
+            if (unindexed.size() > 1) {
+                advice += "（同名索引组成复合索引，列顺序为字段声明顺序，等值条件的列应在前）";
+            }
+            suggestions.add(advice);
+        }
+        return suggestions;
+    }
+
+    /**
+     * 子句中是否以独立标识符的形式出现了列名。
+     *
+     * @param clause 子句
+     * @param column 列名
+     * @return 出现时返回true
+     */
+    private static boolean mentions(String clause, String column) {
+        return !clause.isEmpty() && Pattern.compile("\\b" + Pattern.quote(column) + "\\b", Pattern.CASE_INSENSITIVE)
+            .matcher(clause)
+            .find();
+    }
+
+    /**
+     * 列是否已是某个索引的第一列，或本身是主键/唯一列。
+     *
+     * @param metadata 实体元数据
+     * @param column   列元数据
+     * @return 已有可用索引时返回true
+     */
+    private static boolean isLeadingIndexColumn(EntityMetadata<?> metadata, ColumnMetadata column) {
+        if (column.isPrimaryKey() || column.getColumn()
+            .isUnique()) return true;
+        return metadata.getIndexes()
+            .values()
+            .stream()
+            .anyMatch(
+                indexColumns -> !indexColumns.isEmpty() && indexColumns.get(0)
+                    .equalsIgnoreCase(column.getName()));
+    }
+
+    /**
+     * 获取表名到实体元数据的映射。
+     *
+     * @return 表名到实体元数据的映射
+     */
+    private static Map<String, EntityMetadata<?>> getTables() {
+        Map<String, EntityMetadata<?>> result = tables;
+        if (result == null) {
+            result = new HashMap<>();
+            for (Class<?> type : EntityRegistry.getEntities()) {
+                EntityMetadata<?> metadata = EntityMetadata.of(type);
+                result.put(metadata.getTableName(), metadata);
+            }
+            tables = result;
+        }
+        return result;
+    }
+
+    /**
+     * 生成审计报告，按执行次数从多到少列出存在问题的 SQL 形态。
+     *
+     * @return 报告行
+     */
+    public static List<String> getReport() {
+        List<String> lines = new ArrayList<>();
+        if (!enabled) {
+            lines.add("查询计划审计: 未启用，开启 debugMode 后重新进入世界");
+            return lines;
+        }
+        List<Shape> problems = SHAPES.values()
+            .stream()
+            .filter(shape -> shape.findings != null && !shape.findings.isEmpty())
+            .sorted(
+                (a, b) -> Long.compare(
+                    b.executions.get(),
+                    a.executions.get()))
+            .collect(Collectors.toList());
+        long pending = SHAPES.values()
+            .stream()
+            .filter(shape -> shape.findings == null)
+            .count();
+        lines.add(
+            String.format(
+                "查询计划审计: %d 种SQL, %d 种存在扫描或临时B树, %d 种待分析",
+                SHAPES.size(),
+                problems.size(),
+                pending));
+        for (Shape shape : problems.subList(0, Math.min(problems.size(), MAX_REPORTED))) {
+            lines.add("[" + shape.executions.get() + " 次] " + shape.sql);
+            for (String finding : shape.findings) {
+                lines.add("  - " + finding);
+            }
+            synchronized (shape.callSites) {
+                for (String site : shape.callSites) {
+                    lines.add("  - 调用位置: " + site);
+                }
+            }
+            for (String suggestion : shape.suggestions) {
+                lines.add("  - 建议: " + suggestion);
+            }
+        }
+        if (problems.size() > MAX_REPORTED) {
+            lines.add("……另有 " + (problems.size() - MAX_REPORTED) + " 种未列出，完整内容见日志");
+        }
+        return lines;
+    }
+}
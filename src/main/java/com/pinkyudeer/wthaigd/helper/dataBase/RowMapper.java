@@ -0,0 +1,135 @@
+package com.pinkyudeer.wthaigd.helper.dataBase;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata.ColumnMetadata;
+import com.pinkyudeer.wthaigd.helper.dataBase.converter.TypeConverter;
+
+/**
+ * 结果集行映射器。
+ * 按 (实体类, 结果集列结构) 生成并缓存，列位置只在创建时按列名解析一次，
+ * 每行按列序号通过列的类型转换器读取（数值和字符串使用 getInt/getLong/getDouble/getString 等专用方法），
+ * 字段赋值使用预先绑定的 MethodHandle，避免逐行扫描元数据和反射赋值。
+ *
+ * @param <T> 实体类型
+ */
+public final class RowMapper<T> {
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final Map<Class<?>, Map<String, RowMapper<?>>> MAPPERS = new ConcurrentHashMap<>();
+
+    /**
+     * 单列绑定：列序号、类型转换器和字段赋值句柄
+     */
+    private static final class ColumnBinding {
+
+        private final int index;
+        private final TypeConverter<Object> converter;
+        private final MethodHandle setter;
+        private final boolean primitive;
+
+        private ColumnBinding(int index, TypeConverter<Object> converter, MethodHandle setter, boolean primitive) {
+            this.index = index;
+            this.converter = converter;
+            this.setter = setter;
+            this.primitive = primitive;
+        }
+    }
+
+    private final EntityMetadata<T> metadata;
+    private final ColumnBinding[] bindings;
+
+    private RowMapper(EntityMetadata<T> metadata, String[] labels) {
+        this.metadata = metadata;
+        List<ColumnBinding> list = new ArrayList<>();
+        for (int i = 0; i < labels.length; i++) {
+            ColumnMetadata column = metadata.getColumn(labels[i]);
+            if (column == null) continue;
+            list.add(
+                new ColumnBinding(
+                    i + 1,
+                    column.getConverter(),
+                    setterFor(column),
+                    column.getJavaType()
+                        .isPrimitive()));
+        }
+        this.bindings = list.toArray(new ColumnBinding[0]);
+    }
+
+    /**
+     * 获取适用于该结果集列结构的映射器。
+     * 每个结果集只需调用一次，之后对每一行调用 {@link #map(ResultSet)}。
+     *
+     * @param rs   结果集
+     * @param type 目标实体类
+     * @param <T>  实体类型
+     * @return 行映射器
+     * @throws SQLException 当读取结果集元数据失败时抛出
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RowMapper<T> forResultSet(ResultSet rs, Class<T> type) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] labels = new String[columnCount];
+        StringBuilder shape = new StringBuilder();
+        for (int i = 1; i <= columnCount; i++) {
+            String label = metaData.getColumnLabel(i);
+            if (label == null || label.isEmpty()) {
+                label = metaData.getColumnName(i);
+            }
+            labels[i - 1] = label;
+            shape.append(label)
+                .append('\u0000');
+        }
+        return (RowMapper<T>) MAPPERS.computeIfAbsent(type, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(shape.toString(), k -> new RowMapper<>(EntityMetadata.of(type), labels));
+    }
+
+    /**
+     * 将结果集当前行映射为实体对象。调用方需要确保结果集已定位到一行数据。
+     *
+     * @param rs 结果集
+     * @return 实体对象
+     * @throws SQLException 当读取或赋值失败时抛出
+     */
+    public T map(ResultSet rs) throws SQLException {
+        T entity = metadata.newInstance();
+        for (ColumnBinding binding : bindings) {
+            Object value = binding.converter.read(rs, binding.index);
+            if (value == null && binding.primitive) continue;
+            try {
+                binding.setter.invokeExact((Object) entity, value);
+            } catch (Throwable e) {
+                throw new SQLException("Error mapping ResultSet to " + metadata.getType()
+                    .getName(), e);
+            }
+        }
+        return entity;
+    }
+
+    /**
+     * 生成字段赋值句柄，签名统一为 (Object, Object)void。
+     *
+     * @param column 列元数据
+     * @return 赋值句柄
+     */
+    private static MethodHandle setterFor(ColumnMetadata column) {
+        try {
+            return MethodHandles.lookup()
+                .unreflectSetter(column.getField())
+                .asType(SETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("无法访问字段: " + column.getField()
+                .getName(), e);
+        }
+    }
+}
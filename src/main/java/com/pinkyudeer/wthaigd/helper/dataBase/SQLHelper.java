@@ -1,16 +1,26 @@
 package com.pinkyudeer.wthaigd.helper.dataBase;
 
+import java.sql.ResultSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import com.pinkyudeer.wthaigd.helper.dataBase.builder.AlterTableBuilder;
+import com.pinkyudeer.wthaigd.helper.dataBase.builder.BatchInsertBuilder;
 import com.pinkyudeer.wthaigd.helper.dataBase.builder.CreateTableBuilder;
 import com.pinkyudeer.wthaigd.helper.dataBase.builder.DeleteBuilder;
 import com.pinkyudeer.wthaigd.helper.dataBase.builder.DropTableBuilder;
 import com.pinkyudeer.wthaigd.helper.dataBase.builder.InsertBuilder;
 import com.pinkyudeer.wthaigd.helper.dataBase.builder.SelectBuilder;
+import com.pinkyudeer.wthaigd.helper.dataBase.builder.SqlTemplate;
+import com.pinkyudeer.wthaigd.helper.dataBase.builder.SqlTemplates;
 import com.pinkyudeer.wthaigd.helper.dataBase.builder.UpdateBuilder;
+import com.pinkyudeer.wthaigd.helper.dataBase.builder.UpsertBuilder;
+import com.pinkyudeer.wthaigd.helper.dataBase.cache.EntityCache;
+import com.pinkyudeer.wthaigd.helper.dataBase.cache.EntityCaches;
 
 import lombok.Getter;
 
@@ -137,6 +147,7 @@ public class SQLHelper {
 
     /**
      * 批量插入实体对象列表。
+     * 按非空列集合分组生成多行 INSERT，并在同一个事务中执行。
      *
      * @param entities 要插入的实体对象列表
      * @param <T>      实体类型
@@ -146,12 +157,69 @@ public class SQLHelper {
         if (entities == null || entities.isEmpty()) {
             return 0;
         }
+        return new BatchInsertBuilder<>(entities).execute();
+    }
 
-        int total = 0;
-        for (T entity : entities) {
-            total += insert(entity);
-        }
-        return total;
+    /**
+     * 创建插入或更新构建器，冲突时更新插入的列。
+     *
+     * @param entity          要插入或更新的实体对象
+     * @param conflictColumns 冲突检测的列，为空时使用主键
+     * @param <T>             实体类型
+     * @return 插入或更新构建器实例
+     */
+    public static <T> UpsertBuilder<T> upsert(T entity, String... conflictColumns) {
+        UpsertBuilder<T> builder = new UpsertBuilder<>(entity);
+        return conflictColumns.length == 0 ? builder : builder.onConflict(conflictColumns);
+    }
+
+    /**
+     * 创建批量插入或更新构建器，所有语句在同一个事务中执行。
+     *
+     * @param entities        要插入或更新的实体对象列表
+     * @param conflictColumns 冲突检测的列，为空时使用主键
+     * @param <T>             实体类型
+     * @return 插入或更新构建器实例
+     */
+    public static <T> UpsertBuilder<T> upsertAll(List<T> entities, String... conflictColumns) {
+        UpsertBuilder<T> builder = new UpsertBuilder<>(entities);
+        return conflictColumns.length == 0 ? builder : builder.onConflict(conflictColumns);
+    }
+
+    /**
+     * 在一个事务中执行多个构建器操作。
+     * 所有操作在同一个 BEGIN/COMMIT 中完成，任务抛出异常时整体回滚；
+     * 嵌套调用时使用保存点，只回滚内层的操作。
+     *
+     * @param work 事务任务
+     * @param <R>  结果类型
+     * @return 任务结果
+     */
+    public static <R> R transaction(Supplier<R> work) {
+        return SQLiteManager.inTransaction(work);
+    }
+
+    /**
+     * 在一个事务中执行多个构建器操作，无返回值。
+     *
+     * @param work 事务任务
+     */
+    public static void transaction(Runnable work) {
+        SQLiteManager.inTransaction(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * 在数据库线程上异步执行事务。
+     *
+     * @param work 事务任务
+     * @param <R>  结果类型
+     * @return 任务结果
+     */
+    public static <R> CompletableFuture<R> transactionAsync(Supplier<R> work) {
+        return DataBaseExecutor.submit(QueryPlanAuditor.traced(() -> SQLiteManager.inTransaction(work)));
     }
 
     /**
@@ -222,6 +290,18 @@ public class SQLHelper {
         return new UpdateBuilder<>(entity, oldEntity);
     }
 
+    /**
+     * 创建更新操作构建器，只更新相对于快照被修改的列。
+     *
+     * @param entity   当前实体对象
+     * @param snapshot 实体修改前通过 {@link EntitySnapshot#of} 记录的快照
+     * @param <T>      实体类型
+     * @return 更新构建器实例
+     */
+    public static <T> UpdateBuilder<T> updateChanged(T entity, EntitySnapshot<T> snapshot) {
+        return new UpdateBuilder<>(entity, snapshot);
+    }
+
     /**
      * 创建查询操作构建器。
      *
@@ -253,11 +333,24 @@ public class SQLHelper {
      * @return 实体对象列表
      */
     public static <T> List<T> selectAllFrom(Class<T> entityClass) {
-        return EntityHandler.handleList(select(entityClass).execute(), entityClass);
+        return select(entityClass).list();
+    }
+
+    /**
+     * 以惰性流的形式遍历全部数据，适用于导出、统计等大表操作。
+     * 流需要在 try-with-resources 中使用，以便提前结束时释放语句。
+     *
+     * @param entityClass 实体类
+     * @param <T>         实体类型
+     * @return 实体流
+     */
+    public static <T> Stream<T> streamAllFrom(Class<T> entityClass) {
+        return select(entityClass).stream();
     }
 
     /**
      * 根据主键查询单个实体对象。
+     * 启用实体缓存时先查缓存，未命中时查询数据库并写入缓存；返回的总是新构造的实体，修改它不会影响缓存。
      *
      * @param entityClass 实体类
      * @param id          实体主键，本项目中为UUID
@@ -265,11 +358,22 @@ public class SQLHelper {
      * @return 实体对象
      */
     public static <T> T selectByPremiereKey(Class<T> entityClass, UUID id) {
-        return EntityHandler.handleSingle(
-            select(entityClass).where("id", SQLHelper.Operator.EQ, id)
-                .limit(1)
-                .execute(),
-            entityClass);
+        EntityMetadata<T> metadata = EntityMetadata.of(entityClass);
+        EntityCache cache = EntityCaches.forType(entityClass);
+        if (cache != null) {
+            Object[] cached = cache.get(id);
+            if (cached != null) return metadata.fromValues(cached);
+        }
+        SqlTemplate template = SqlTemplates.selectById(metadata);
+        return DataBaseExecutor.call(QueryPlanAuditor.traced(() -> {
+            T entity = EntityHandler
+                .handleSingle((ResultSet) SQLiteManager.executeSafeSQL(template.getSql(), id), entityClass);
+            // 与查询在同一个数据库任务中写入缓存，之后的写入一定会使其失效；事务内的数据可能回滚，不写入缓存
+            if (entity != null && cache != null && !SQLiteManager.isInTransaction()) {
+                cache.put(id, metadata.getValues(entity));
+            }
+            return entity;
+        }));
     }
 
     /**
@@ -0,0 +1,810 @@
+package com.pinkyudeer.wthaigd.helper.dataBase;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import org.sqlite.SQLiteConnection;
+
+import com.pinkyudeer.wthaigd.Wthaigd;
+import com.pinkyudeer.wthaigd.helper.UtilHelper;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata.ColumnMetadata;
+import com.pinkyudeer.wthaigd.helper.dataBase.annotation.Column;
+import com.pinkyudeer.wthaigd.helper.dataBase.annotation.Table;
+import com.pinkyudeer.wthaigd.helper.dataBase.builder.BatchInsertBuilder;
+import com.pinkyudeer.wthaigd.helper.dataBase.builder.CreateTableBuilder;
+import com.pinkyudeer.wthaigd.helper.dataBase.builder.SqlTemplate;
+import com.pinkyudeer.wthaigd.helper.dataBase.builder.SqlTemplates;
+import com.pinkyudeer.wthaigd.helper.dataBase.converter.TypeConverters;
+import com.pinkyudeer.wthaigd.task.entity.Player;
+import com.pinkyudeer.wthaigd.task.entity.Task;
+
+/**
+ * SQLite 性能测试工具类。
+ * 运行相同的负载，用于比较不同实现的耗时。仅供调试命令使用。
+ * 所有测试都使用私有的临时数据库，不访问也不修改当前世界数据库。
+ */
+public class SQLiteBenchmark {
+
+    /**
+     * 测试用临时表实体
+     */
+    @Table(name = "wthaigd_bench_rows")
+    public static class BenchRow {
+
+        @Column(name = "id", isPrimaryKey = true)
+        private UUID id = UUID.randomUUID();
+        @Column(name = "name")
+        private String name;
+        @Column(name = "points")
+        private Integer points;
+        @Column(name = "create_time")
+        private LocalDateTime createTime = LocalDateTime.now();
+
+        public BenchRow() {}
+
+        BenchRow(int index) {
+            this.name = "row" + index;
+            this.points = index;
+        }
+    }
+
+    private static final String CREATE_SQL = "CREATE TABLE bench "
+        + "(id TEXT PRIMARY KEY, name TEXT, points INTEGER, update_time TIMESTAMP)";
+    private static final String INSERT_SQL = "INSERT INTO bench (id, name, points, update_time) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_SQL = "SELECT * FROM bench WHERE id = ?";
+    private static final String UPDATE_SQL = "UPDATE bench SET points = points + 1 WHERE id = ?";
+    private static final int MAPPER_ROUNDS = 5;
+    private static final int PAGE_SIZE = 100;
+
+    /**
+     * 运行指定的性能测试。
+     *
+     * @param kind 测试类型
+     * @param rows 行数
+     * @return 测试报告
+     */
+    public static List<String> run(String kind, int rows) {
+        return switch (kind) {
+            case "storage" -> compareStorageModes(rows);
+            case "insert" -> compareInsert(rows);
+            case "mapper" -> compareMappers(rows);
+            case "login" -> compareLoginDiff(rows);
+            case "page" -> comparePaging(rows);
+            case "uuid" -> compareUuidStorage(rows);
+            default -> Collections
+                .singletonList("未知的性能测试: " + kind + "，可用: storage, insert, mapper, login, page, uuid");
+        };
+    }
+
+    /**
+     * 比较逐条插入与批量插入的耗时。
+     * 使用私有内存数据库和与构建器相同的SQL模板：逐条插入每行一条语句并自动提交，
+     * 批量插入按绑定参数上限分块生成多行语句并在同一事务中提交。不经过数据库线程，也不写入世界数据库。
+     *
+     * @param rows 行数
+     * @return 测试报告
+     */
+    public static List<String> compareInsert(int rows) {
+        List<String> report = new ArrayList<>();
+        EntityMetadata<BenchRow> metadata = EntityMetadata.of(BenchRow.class);
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            createBenchTable(conn);
+
+            List<BenchRow> loopRows = createBenchRows(rows);
+            // 与语句缓存一样复用同一SQL的预编译语句
+            Map<String, PreparedStatement> statements = new HashMap<>();
+            long start = System.nanoTime();
+            try {
+                for (BenchRow row : loopRows) {
+                    Object[] values = metadata.getValues(row);
+                    SqlTemplate template = SqlTemplates.insert(metadata, SqlTemplates.nonNullColumns(values), 1);
+                    PreparedStatement ps = statements.get(template.getSql());
+                    if (ps == null) {
+                        ps = conn.prepareStatement(template.getSql());
+                        statements.put(template.getSql(), ps);
+                    }
+                    bindAll(ps, template.bind(values));
+                    ps.executeUpdate();
+                }
+            } finally {
+                for (PreparedStatement ps : statements.values()) {
+                    ps.close();
+                }
+            }
+            report.add(String.format("逐条插入 %d 行: %d ms", rows, (System.nanoTime() - start) / 1_000_000));
+
+            try (Statement statement = conn.createStatement()) {
+                statement.execute("DELETE FROM " + metadata.getTableName());
+            }
+            List<BenchRow> batchRows = createBenchRows(rows);
+            start = System.nanoTime();
+            insertBenchRows(conn, batchRows);
+            report.add(String.format("批量插入 %d 行: %d ms", rows, (System.nanoTime() - start) / 1_000_000));
+        } catch (SQLException | RuntimeException e) {
+            report.add("测试失败: " + e.getMessage());
+        }
+        return report;
+    }
+
+    /**
+     * 在给定连接上创建测试表。
+     *
+     * @param conn 数据库连接
+     * @throws SQLException 当执行失败时抛出
+     */
+    private static void createBenchTable(Connection conn) throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            for (String sql : new CreateTableBuilder<>(BenchRow.class).build()
+                .getSqls()) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * 按批量插入构建器的方式写入测试行：按绑定参数上限分块，所有分块在同一事务中提交。
+     *
+     * @param conn     数据库连接
+     * @param entities 测试行
+     * @throws SQLException 当执行失败时抛出
+     */
+    private static void insertBenchRows(Connection conn, List<BenchRow> entities) throws SQLException {
+        EntityMetadata<BenchRow> metadata = EntityMetadata.of(BenchRow.class);
+        Object[][] rowValues = new Object[entities.size()][];
+        for (int i = 0; i < rowValues.length; i++) {
+            rowValues[i] = metadata.getValues(entities.get(i));
+        }
+        if (rowValues.length == 0) return;
+        BitSet columns = SqlTemplates.nonNullColumns(rowValues[0]);
+        int rowsPerStatement = Math.max(1, BatchInsertBuilder.MAX_BOUND_PARAMETERS / columns.cardinality());
+        conn.setAutoCommit(false);
+        try {
+            for (int from = 0; from < rowValues.length; from += rowsPerStatement) {
+                int to = Math.min(from + rowsPerStatement, rowValues.length);
+                SqlTemplate template = SqlTemplates.insert(metadata, columns, to - from);
+                try (PreparedStatement ps = conn.prepareStatement(template.getSql())) {
+                    bindAll(ps, template.bindRows(rowValues, from, to));
+                    ps.executeUpdate();
+                }
+            }
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * 按类型转换器依次绑定参数。
+     *
+     * @param ps     预编译语句
+     * @param params 参数
+     * @throws SQLException 当绑定失败时抛出
+     */
+    private static void bindAll(PreparedStatement ps, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            TypeConverters.bind(ps, i + 1, params[i]);
+        }
+    }
+
+    /**
+     * 比较 OFFSET 分页与键集分页翻完整张表的耗时。
+     * 两种方式都按 (create_time, id) 排序并使用对应的索引，SQL 与 SelectBuilder 的 offset() 和 page() 生成的一致，
+     * 在私有内存数据库上执行，不写入世界数据库。
+     *
+     * @param rows 行数
+     * @return 测试报告
+     */
+    public static List<String> comparePaging(int rows) {
+        List<String> report = new ArrayList<>();
+        EntityMetadata<BenchRow> metadata = EntityMetadata.of(BenchRow.class);
+        String table = metadata.getTableName();
+        String order = String.format(" ORDER BY %s.create_time ASC, %s.id ASC", table, table);
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            createBenchTable(conn);
+            try (Statement statement = conn.createStatement()) {
+                statement.execute("CREATE INDEX idx_wthaigd_bench_rows_seek ON " + table + " (create_time, id)");
+            }
+            insertBenchRows(conn, createBenchRows(rows));
+
+            long start = System.nanoTime();
+            int pages = 0;
+            for (int offset = 0;; offset += PAGE_SIZE) {
+                String sql = "SELECT * FROM " + table
+                    + order
+                    + " LIMIT "
+                    + PAGE_SIZE
+                    + (offset > 0 ? " OFFSET " + offset : "");
+                if (readPage(conn, sql).isEmpty()) break;
+                pages++;
+            }
+            report.add(String.format("OFFSET 分页 %d 页: %d ms", pages, (System.nanoTime() - start) / 1_000_000));
+
+            // 与 page() 一样多读取一行判断是否还有下一页，续页条件使用行值比较
+            String firstSql = "SELECT * FROM " + table + order + " LIMIT " + (PAGE_SIZE + 1);
+            String nextSql = String.format(
+                "SELECT * FROM %s WHERE (%s.create_time, %s.id) > (?, ?)%s LIMIT %d",
+                table,
+                table,
+                table,
+                order,
+                PAGE_SIZE + 1);
+            ColumnMetadata createTime = metadata.getColumn("create_time");
+            ColumnMetadata id = metadata.getColumn("id");
+            start = System.nanoTime();
+            pages = 0;
+            List<BenchRow> page = readPage(conn, firstSql);
+            while (true) {
+                pages++;
+                if (page.size() <= PAGE_SIZE) break;
+                BenchRow last = page.get(PAGE_SIZE - 1);
+                page = readPage(conn, nextSql, createTime.get(last), id.get(last));
+            }
+            report.add(String.format("键集分页 %d 页: %d ms", pages, (System.nanoTime() - start) / 1_000_000));
+        } catch (SQLException | RuntimeException e) {
+            report.add("测试失败: " + e.getMessage());
+        }
+        return report;
+    }
+
+    /**
+     * 执行一次分页查询并用行映射器读取结果。
+     *
+     * @param conn   数据库连接
+     * @param sql    查询语句
+     * @param params 查询参数
+     * @return 测试行列表
+     * @throws SQLException 当执行失败时抛出
+     */
+    private static List<BenchRow> readPage(Connection conn, String sql, Object... params) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            bindAll(ps, params);
+            List<BenchRow> page = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                RowMapper<BenchRow> mapper = RowMapper.forResultSet(rs, BenchRow.class);
+                while (rs.next()) {
+                    page.add(mapper.map(rs));
+                }
+            }
+            return page;
+        }
+    }
+
+    /**
+     * 比较逐行反射映射与生成的行映射器在 Task 和 Player 上的耗时。
+     * 使用私有内存数据库，每种映射方式运行多轮并取最短耗时。
+     *
+     * @param rows 行数
+     * @return 测试报告
+     */
+    public static List<String> compareMappers(int rows) {
+        List<String> report = new ArrayList<>();
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            report.add(runMapperWorkload(conn, Task.class, rows, i -> new Task("task" + i, "desc", UUID.randomUUID())));
+            report.add(runMapperWorkload(conn, Player.class, rows, i -> new Player("player" + i, UUID.randomUUID())));
+        } catch (SQLException | RuntimeException e) {
+            report.add("测试失败: " + e.getMessage());
+        }
+        return report;
+    }
+
+    /**
+     * 在给定连接上建表、写入测试数据，并比较两种映射方式。
+     *
+     * @param conn    数据库连接
+     * @param type    实体类
+     * @param rows    行数
+     * @param factory 测试实体生成函数
+     * @param <T>     实体类型
+     * @return 测试结果描述
+     * @throws SQLException 当执行失败时抛出
+     */
+    private static <T> String runMapperWorkload(Connection conn, Class<T> type, int rows, IntFunction<T> factory)
+        throws SQLException {
+        EntityMetadata<T> metadata = EntityMetadata.of(type);
+        List<ColumnMetadata> columns = metadata.getColumns();
+        try (Statement statement = conn.createStatement()) {
+            for (String sql : new CreateTableBuilder<>(type).build()
+                .getSqls()) {
+                statement.execute(sql);
+            }
+        }
+
+        String insertSql = String.format(
+            "INSERT INTO %s (%s) VALUES (%s)",
+            metadata.getTableName(),
+            columns.stream()
+                .map(ColumnMetadata::getName)
+                .collect(Collectors.joining(", ")),
+            String.join(", ", Collections.nCopies(columns.size(), "?")));
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(insertSql)) {
+            for (int i = 0; i < rows; i++) {
+                T entity = factory.apply(i);
+                for (int c = 0; c < columns.size(); c++) {
+                    TypeConverters.bind(
+                        ps,
+                        c + 1,
+                        columns.get(c)
+                            .get(entity));
+                }
+                ps.executeUpdate();
+            }
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+
+        String selectSql = "SELECT * FROM " + metadata.getTableName();
+        long legacyNanos = Long.MAX_VALUE;
+        long mapperNanos = Long.MAX_VALUE;
+        for (int round = 0; round < MAPPER_ROUNDS; round++) {
+            legacyNanos = Math.min(legacyNanos, timeLegacyMapping(conn, selectSql, metadata));
+            mapperNanos = Math.min(mapperNanos, timeRowMapper(conn, selectSql, type));
+        }
+        return String.format(
+            "%s %d 行: 反射映射(getObject+类型名转换) %.1f ms | 行映射器 %.1f ms | %.2f 倍",
+            type.getSimpleName(),
+            rows,
+            legacyNanos / 1_000_000.0,
+            mapperNanos / 1_000_000.0,
+            (double) legacyNanos / Math.max(1, mapperNanos));
+    }
+
+    /**
+     * 按替换前的 EntityHandler 方式映射全部行，作为对照组：
+     * 逐行扫描字段注解、按列名查找列，再用 {@code getObject} 取值并按字段类型转换。
+     *
+     * @param conn     数据库连接
+     * @param sql      查询语句
+     * @param metadata 实体元数据
+     * @return 耗时（纳秒）
+     * @throws SQLException 当执行失败时抛出
+     */
+    private static long timeLegacyMapping(Connection conn, String sql, EntityMetadata<?> metadata)
+        throws SQLException {
+        long start = System.nanoTime();
+        try (Statement statement = conn.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                Object entity = metadata.newInstance();
+                ResultSetMetaData metaData = rs.getMetaData();
+                for (Field field : UtilHelper.getAllFieldsReverse(metadata.getType())) {
+                    Column column = field.getAnnotation(Column.class);
+                    if (column == null) continue;
+                    field.setAccessible(true);
+                    for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                        if (!metaData.getColumnLabel(i)
+                            .equalsIgnoreCase(column.name())) continue;
+                        Object value = rs.getObject(column.name());
+                        if (value != null && !field.getType()
+                            .isAssignableFrom(value.getClass())) {
+                            value = legacyConvert(value, field.getType());
+                        }
+                        field.set(entity, value);
+                        break;
+                    }
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new SQLException(e);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * 替换前的 {@code UtilHelper.convertValue} 的副本，按类型名逐个分支转换单元格的值。
+     * 唯一的改动是 UUID 可以从16字节 BLOB 读取，以兼容现在的存储格式。
+     *
+     * @param value 单元格的值
+     * @param type  字段类型
+     * @return 转换后的值
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object legacyConvert(Object value, Class<?> type) {
+        String typeName = type.getSimpleName();
+        if (typeName.equals("String")) {
+            return value.toString();
+        }
+        if (type.isEnum()) {
+            return Enum.valueOf((Class<Enum>) type, value.toString());
+        }
+        if (typeName.equals("UUID")) {
+            return value instanceof byte[] ? TypeConverters.uuidFromBytes((byte[]) value)
+                : UUID.fromString(value.toString());
+        }
+        switch (typeName) {
+            case "int", "Integer" -> {
+                return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(value.toString());
+            }
+            case "long", "Long" -> {
+                return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString());
+            }
+            case "double", "Double" -> {
+                return value instanceof Number ? ((Number) value).doubleValue()
+                    : Double.parseDouble(value.toString());
+            }
+            case "Duration" -> {
+                return Duration.parse(value.toString());
+            }
+            case "boolean", "Boolean" -> {
+                return value instanceof Number ? ((Number) value).intValue() != 0
+                    : Boolean.parseBoolean(value.toString());
+            }
+            case "Date" -> {
+                return value instanceof String ? java.sql.Date.valueOf((String) value) : value;
+            }
+            case "LocalDateTime" -> {
+                return value instanceof String ? LocalDateTime.parse((String) value) : value;
+            }
+            default -> throw new IllegalArgumentException("不支持的字段类型转换: " + type);
+        }
+    }
+
+    /**
+     * 使用行映射器映射全部行。
+     *
+     * @param conn 数据库连接
+     * @param sql  查询语句
+     * @param type 实体类
+     * @return 耗时（纳秒）
+     * @throws SQLException 当执行失败时抛出
+     */
+    private static long timeRowMapper(Connection conn, String sql, Class<?> type) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement statement = conn.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            RowMapper<?> mapper = RowMapper.forResultSet(rs, type);
+            while (rs.next()) {
+                mapper.map(rs);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * 比较玩家登录更新时，深度克隆比对与快照比对两种求差异方式的耗时和内存分配。
+     * 只测量在调用线程上完成的克隆/快照和求差异部分，不访问数据库。
+     *
+     * @param rows 重复次数
+     * @return 测试报告
+     */
+    public static List<String> compareLoginDiff(int rows) {
+        List<String> report = new ArrayList<>();
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean allocationBean)
+            || !allocationBean.isThreadAllocatedMemorySupported()) {
+            report.add("当前JVM不支持统计线程内存分配");
+            return report;
+        }
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread()
+            .getId();
+        EntityMetadata<Player> metadata = EntityMetadata.of(Player.class);
+        Player player = new Player("player", UUID.randomUUID());
+
+        int changed = 0;
+        long startBytes = allocationBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            Player old = UtilHelper.deepClone(player, Player.class);
+            player.setLastLoginTime(LocalDateTime.now());
+            Map<String, Object> newValues = metadata.getColumnValues(player);
+            Map<String, Object> oldValues = metadata.getColumnValues(old);
+            for (Map.Entry<String, Object> entry : newValues.entrySet()) {
+                if (!Objects.equals(entry.getValue(), oldValues.get(entry.getKey()))) changed++;
+            }
+        }
+        long cloneNanos = System.nanoTime() - start;
+        long cloneBytes = allocationBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+        startBytes = allocationBean.getThreadAllocatedBytes(threadId);
+        start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            EntitySnapshot<Player> snapshot = EntitySnapshot.of(player);
+            player.setLastLoginTime(LocalDateTime.now());
+            changed += snapshot.getChangedValues(player)
+                .size();
+        }
+        long snapshotNanos = System.nanoTime() - start;
+        long snapshotBytes = allocationBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+        report.add(
+            String.format(
+                "深度克隆比对 %d 次: %d ms, 每次分配 %d 字节",
+                rows,
+                cloneNanos / 1_000_000,
+                cloneBytes / rows));
+        report.add(
+            String.format(
+                "快照比对 %d 次: %d ms, 每次分配 %d 字节",
+                rows,
+                snapshotNanos / 1_000_000,
+                snapshotBytes / rows));
+        Wthaigd.LOG.debug("登录比对测试变更列数: {}", changed);
+        return report;
+    }
+
+    /**
+     * 生成测试行。
+     *
+     * @param rows 行数
+     * @return 测试行列表
+     */
+    private static List<BenchRow> createBenchRows(int rows) {
+        List<BenchRow> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            list.add(new BenchRow(i));
+        }
+        return list;
+    }
+
+    /**
+     * 比较内存模式与文件(WAL)模式在同一负载下的耗时。
+     * 负载包括：批量插入、随机主键查询、逐条自动提交更新，以及一次保存。
+     * 内存模式的保存为完整备份到文件，文件模式的保存为截断式检查点。
+     *
+     * @param rows 行数
+     * @return 测试报告
+     */
+    public static List<String> compareStorageModes(int rows) {
+        List<String> report = new ArrayList<>();
+        File dir = null;
+        try {
+            dir = Files.createTempDirectory("wthaigd-bench")
+                .toFile();
+            File memBackup = new File(dir, "memory.db");
+            File walFile = new File(dir, "wal.db");
+
+            try (Connection mem = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+                report.add("内存模式: " + runStorageWorkload(mem, rows, () -> {
+                    mem.unwrap(SQLiteConnection.class)
+                        .getDatabase()
+                        .backup("main", memBackup.getAbsolutePath(), (remaining, pageCount) -> {});
+                }));
+            }
+            try (Connection wal = DriverManager.getConnection("jdbc:sqlite:" + walFile.getAbsolutePath())) {
+                SQLiteManager.applyFilePragmas(wal, 256, 32);
+                report.add("文件模式(WAL): " + runStorageWorkload(wal, rows, () -> {
+                    try (Statement statement = wal.createStatement()) {
+                        statement.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+                    }
+                }));
+            }
+        } catch (SQLException | IOException e) {
+            report.add("测试失败: " + e.getMessage());
+        } finally {
+            deleteRecursively(dir);
+        }
+        return report;
+    }
+
+    /**
+     * 在给定连接上运行存储模式负载。
+     *
+     * @param conn 数据库连接
+     * @param rows 行数
+     * @param save 保存操作
+     * @return 各阶段耗时描述
+     * @throws SQLException 当执行失败时抛出
+     */
+    private static String runStorageWorkload(Connection conn, int rows, SQLAction save) throws SQLException {
+        List<String> ids = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            ids.add(
+                UUID.randomUUID()
+                    .toString());
+        }
+        Random random = new Random(42);
+
+        try (Statement statement = conn.createStatement()) {
+            statement.execute(CREATE_SQL);
+        }
+
+        long start = System.nanoTime();
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
+            for (int i = 0; i < rows; i++) {
+                ps.setString(1, ids.get(i));
+                ps.setString(2, "player" + i);
+                ps.setInt(3, i);
+                ps.setString(4, "2025-01-01T00:00:00");
+                ps.executeUpdate();
+            }
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+        long insertNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_SQL)) {
+            for (int i = 0; i < rows; i++) {
+                ps.setString(1, ids.get(random.nextInt(rows)));
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                }
+            }
+        }
+        long selectNanos = System.nanoTime() - start;
+
+        int updates = Math.min(rows, 1000);
+        start = System.nanoTime();
+        try (PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)) {
+            for (int i = 0; i < updates; i++) {
+                ps.setString(1, ids.get(random.nextInt(rows)));
+                ps.executeUpdate();
+            }
+        }
+        long updateNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        save.run();
+        long saveNanos = System.nanoTime() - start;
+
+        return String.format(
+            "插入 %d 行 %d ms | 主键查询 %d 次 %d ms | 自动提交更新 %d 次 %d ms | 保存 %d ms",
+            rows,
+            insertNanos / 1_000_000,
+            rows,
+            selectNanos / 1_000_000,
+            updates,
+            updateNanos / 1_000_000,
+            saveNanos / 1_000_000);
+    }
+
+    /**
+     * 比较 UUID 以36字符文本和16字节 BLOB 存储时的数据库大小、插入、主键查询和关联查询耗时。
+     * 每种格式使用独立的私有内存数据库，表中有 UUID 主键和一个带索引的 UUID 外键列。
+     *
+     * @param rows 行数
+     * @return 测试报告
+     */
+    public static List<String> compareUuidStorage(int rows) {
+        List<String> report = new ArrayList<>();
+        List<UUID> ids = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        for (TypeConverters.UuidStorage storage : TypeConverters.UuidStorage.values()) {
+            try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+                report.add(storage + ": " + runUuidWorkload(conn, storage, ids));
+            } catch (SQLException e) {
+                report.add("测试失败: " + e.getMessage());
+            }
+        }
+        return report;
+    }
+
+    /**
+     * 在给定连接上以指定格式存储 UUID 并运行负载。
+     *
+     * @param conn    数据库连接
+     * @param storage UUID 存储格式
+     * @param ids     测试用 UUID
+     * @return 数据库大小和各阶段耗时描述
+     * @throws SQLException 当执行失败时抛出
+     */
+    private static String runUuidWorkload(Connection conn, TypeConverters.UuidStorage storage, List<UUID> ids)
+        throws SQLException {
+        boolean blob = storage == TypeConverters.UuidStorage.BLOB;
+        int rows = ids.size();
+        Random random = new Random(42);
+        try (Statement statement = conn.createStatement()) {
+            statement.execute(
+                String.format("CREATE TABLE uuid_bench (id %s PRIMARY KEY, parent %s)", storage, storage));
+            statement.execute("CREATE INDEX idx_uuid_bench_parent ON uuid_bench (parent)");
+        }
+
+        long start = System.nanoTime();
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO uuid_bench (id, parent) VALUES (?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                bindUuid(ps, 1, ids.get(i), blob);
+                bindUuid(ps, 2, ids.get(random.nextInt(i + 1)), blob);
+                ps.executeUpdate();
+            }
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+        long insertNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        try (PreparedStatement ps = conn.prepareStatement("SELECT parent FROM uuid_bench WHERE id = ?")) {
+            for (int i = 0; i < rows; i++) {
+                bindUuid(ps, 1, ids.get(random.nextInt(rows)), blob);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                }
+            }
+        }
+        long selectNanos = System.nanoTime() - start;
+
+        long bytes;
+        start = System.nanoTime();
+        try (Statement statement = conn.createStatement()) {
+            try (ResultSet rs = statement
+                .executeQuery("SELECT COUNT(*) FROM uuid_bench c JOIN uuid_bench p ON c.parent = p.id")) {
+                rs.next();
+            }
+            long joinNanos = System.nanoTime() - start;
+            try (ResultSet rs = statement.executeQuery(
+                "SELECT page_count * page_size FROM pragma_page_count(), pragma_page_size()")) {
+                bytes = rs.next() ? rs.getLong(1) : 0;
+            }
+            return String.format(
+                "数据库大小 %.1f KiB | 插入 %d 行 %d ms | 主键查询 %d 次 %d ms | 关联查询 %d ms",
+                bytes / 1024.0,
+                rows,
+                insertNanos / 1_000_000,
+                rows,
+                selectNanos / 1_000_000,
+                joinNanos / 1_000_000);
+        }
+    }
+
+    /**
+     * 按存储格式绑定 UUID 参数。
+     *
+     * @param ps    预编译语句
+     * @param index 参数位置
+     * @param uuid  UUID
+     * @param blob  是否以16字节 BLOB 绑定
+     * @throws SQLException 当绑定失败时抛出
+     */
+    private static void bindUuid(PreparedStatement ps, int index, UUID uuid, boolean blob) throws SQLException {
+        if (blob) {
+            ps.setBytes(index, TypeConverters.uuidToBytes(uuid));
+        } else {
+            ps.setString(index, uuid.toString());
+        }
+    }
+
+    /**
+     * 递归删除临时目录。
+     *
+     * @param file 文件或目录
+     */
+    private static void deleteRecursively(File file) {
+        if (file == null) return;
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        // noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    /**
+     * 可能抛出 SQLException 的操作。
+     */
+    @FunctionalInterface
+    private interface SQLAction {
+
+        void run() throws SQLException;
+    }
+}
@@ -5,119 +5,527 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import org.sqlite.SQLiteConfig;
 import org.sqlite.SQLiteConnection;
+import org.sqlite.core.DB;
 
 import com.pinkyudeer.wthaigd.Wthaigd;
 import com.pinkyudeer.wthaigd.helper.ModFileHelper;
+import com.pinkyudeer.wthaigd.helper.config.ConfigHelper;
+import com.pinkyudeer.wthaigd.helper.dataBase.cache.EntityCaches;
+import com.pinkyudeer.wthaigd.helper.dataBase.cache.QueryCache;
+import com.pinkyudeer.wthaigd.helper.dataBase.converter.TypeConverters;
+import com.pinkyudeer.wthaigd.helper.dataBase.converter.TypeConverters.UuidStorage;
 import com.pinkyudeer.wthaigd.task.TaskSqlHelper;
 
 /**
  * SQLite 数据库管理类。
  * 负责连接、执行 SQL 和关闭数据库。
- * 该类使用内存数据库作为缓存，并在需要时将数据持久化到文件。
+ * 支持两种存储模式：
+ * <ul>
+ * <li>内存模式：使用内存数据库作为缓存，并在需要时将数据持久化到文件</li>
+ * <li>文件模式：直接打开文件数据库，使用 WAL 日志和内存映射 I/O，保存时仅做检查点</li>
+ * </ul>
+ * 内存模式下两次快照之间的提交写入 {@link MutationJournal}，初始化时在恢复快照后重放。
  */
 public class SQLiteManager {
 
-    private static final String MEM_DB_URL = "jdbc:sqlite::memory:"; // 内存数据库 URL
-    private static Connection inMemoryConnection;
+    // 共享缓存的命名内存数据库，后台快照线程可以通过第二条连接访问同一份数据
+    private static final String MEM_DB_URL = "jdbc:sqlite:file:wthaigd_mem?mode=memory&cache=shared";
+    private static Connection connection;
+    private static StatementCache statementCache;
     private static final File DATABASE_FILE = ModFileHelper.getWorldFile("main.db", false)
         .getAbsoluteFile();
+    private static final File JOURNAL_FILE = ModFileHelper.getWorldFile("main.journal", false)
+        .getAbsoluteFile();
+    /** 记录快照已包含的最后一帧日志序号的表 */
+    private static final String JOURNAL_STATE_TABLE = "wthaigd_journal_state";
     public static boolean isWorldLoaded = false;
+    private static boolean isMemoryMode = true;
+    /** 已执行的写语句计数，用于判断数据库自上次保存后是否有变更 */
+    private static final AtomicLong changeCount = new AtomicLong();
+    /** 上次成功保存时的写语句计数 */
+    private static volatile long savedChangeCount = 0;
+    /** 当前事务嵌套深度，仅在数据库线程上访问 */
+    private static int transactionDepth = 0;
+    /** 上次请求快照的时间，启用写操作日志时用于降低快照频率 */
+    private static volatile long lastSnapshotNanos = 0;
 
     /**
-     * 初始化内存数据库。
-     * 若文件数据库存在则加载数据，否则创建新数据库。
-     *
+     * 初始化数据库。
+     * 根据 isMemoryMode 配置选择内存模式或文件模式。
+     * 内存模式下若文件数据库存在则加载数据，否则创建新数据库；
+     * 文件模式下直接打开文件数据库，不存在时创建表结构。
+     * 加载数据、重放日志和迁移表结构在数据库线程上后台进行，本方法立即返回；
+     * 完成前其他线程的同步调用最多等待 sqlite.startupWaitSeconds 秒，异步提交的任务排在其后执行。
      */
     public static void initSqlite() {
+        isMemoryMode = ConfigHelper.getBoolean("isMemoryMode", true);
+        changeCount.set(0);
+        savedChangeCount = 0;
+        boolean isNewDataBase = !DATABASE_FILE.exists();
         try {
-            inMemoryConnection = DriverManager.getConnection(MEM_DB_URL);
-        } catch (SQLException e) {
+            if (isMemoryMode) {
+                connection = DriverManager.getConnection(MEM_DB_URL);
+            } else {
+                ModFileHelper.ensureWorldDirExist();
+                connection = DriverManager.getConnection("jdbc:sqlite:" + DATABASE_FILE.getAbsolutePath());
+                applyFilePragmas(
+                    connection,
+                    ConfigHelper.getInt("sqlite.mmapSizeMB", 256),
+                    ConfigHelper.getInt("sqlite.cacheSizeMB", 32));
+            }
+        } catch (SQLException | IOException e) {
             Wthaigd.LOG.error("SQLite 初始化失败", e);
             return;
         }
+        statementCache = new StatementCache(connection, ConfigHelper.getInt("sqlite.statementCacheSize", 64));
+        TypeConverters.setUuidStorage(readUuidStorage());
+        EntityCaches.reset();
+        QueryCache.reset();
+        QueryPlanAuditor.reset();
+        DataBaseExecutor.start(ConfigHelper.getInt("sqlite.executorQueueSize", 1024));
         isWorldLoaded = true;
-        if (!DATABASE_FILE.exists()) {
+        lastSnapshotNanos = System.nanoTime();
+        boolean journalEnabled = isMemoryMode && ConfigHelper.getBoolean("sqlite.journal.enabled", true);
+        long startNanos = System.nanoTime();
+        // 恢复、重放和迁移在数据库线程上后台进行，不阻塞世界加载；之后提交的任务排在其后执行
+        DataBaseExecutor
+            .startup(
+                () -> openDataBase(isNewDataBase, journalEnabled),
+                ConfigHelper.getInt("sqlite.startupWaitSeconds", 30) * 1000L)
+            .whenComplete((result, e) -> {
+                if (e != null) {
+                    Wthaigd.LOG.error("SQLite 初始化失败，本次不会保存数据库以免覆盖文件", e);
+                } else {
+                    Wthaigd.LOG.info(
+                        "SQLite 初始化完成，存储模式: {}，耗时 {} ms",
+                        isMemoryMode ? "内存" : "文件(WAL)",
+                        (System.nanoTime() - startNanos) / 1_000_000);
+                }
+            });
+        Wthaigd.LOG.info("SQLite 开始在后台初始化");
+    }
+
+    /**
+     * 读取 UUID 存储格式配置，无法识别时使用 BLOB。
+     *
+     * @return UUID 存储格式
+     */
+    private static UuidStorage readUuidStorage() {
+        String configured = ConfigHelper.getString("sqlite.uuidStorage", "blob");
+        try {
+            return UuidStorage.valueOf(configured.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            Wthaigd.LOG.warn("未知的 UUID 存储格式: {}，使用 BLOB", configured);
+            return UuidStorage.BLOB;
+        }
+    }
+
+    /**
+     * 在数据库线程上准备数据库：新数据库创建表结构，内存模式下从文件恢复数据，然后重放日志并迁移表结构。
+     *
+     * @param isNewDataBase  是否为新创建的数据库
+     * @param journalEnabled 是否启用写操作日志
+     */
+    private static void openDataBase(boolean isNewDataBase, boolean journalEnabled) {
+        if (isNewDataBase) {
             initNewDataBase();
-        } else {
-            loadDataFromFileToMemory();
+        } else if (isMemoryMode) {
+            restoreFromFile();
+        }
+        if (journalEnabled) {
+            openJournal(isNewDataBase);
+        }
+        if (!isNewDataBase) {
+            // 日志中的提交基于旧的表结构，需要在重放之后再迁移
+            TaskSqlHelper.initTaskDataBase();
+        }
+    }
+
+    /**
+     * 为文件模式连接设置 WAL 日志、内存映射 I/O 以及同步和缓存参数。
+     *
+     * @param conn        文件数据库连接
+     * @param mmapSizeMB  内存映射大小（MB），0 表示禁用
+     * @param cacheSizeMB 页缓存大小（MB）
+     * @throws SQLException 当设置失败时抛出
+     */
+    public static void applyFilePragmas(Connection conn, int mmapSizeMB, int cacheSizeMB) throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("PRAGMA journal_mode = WAL");
+            // WAL 模式下 NORMAL 只在检查点时同步，崩溃不会损坏数据库，最多丢失最近的提交
+            statement.execute("PRAGMA synchronous = NORMAL");
+            statement.execute("PRAGMA mmap_size = " + (long) mmapSizeMB * 1024 * 1024);
+            // 负数表示以 KiB 为单位
+            statement.execute("PRAGMA cache_size = " + -cacheSizeMB * 1024);
+            statement.execute("PRAGMA temp_store = MEMORY");
+            statement.execute("PRAGMA busy_timeout = 5000");
         }
-        Wthaigd.LOG.info("SQLite 初始化完成");
     }
 
     /**
-     * 初始化新数据库并保存到文件。
-     * 创建必要的表结构并初始化基础数据。
+     * 初始化新数据库。
+     * 创建必要的表结构并初始化基础数据，内存模式下随后保存到文件。
      */
     private static void initNewDataBase() {
         Wthaigd.LOG.info("初始化新 SQLite 数据库");
 
         // 在这里添加初始化 SQL 语句
         TaskSqlHelper.initTaskDataBase();
+        DataBaseExecutor.run(SQLiteManager::ensureJournalState);
 
-        saveDataFromMemoryToFile();
+        if (isMemoryMode) {
+            saveDataFromMemoryToFile();
+        }
     }
 
     /**
-     * 从文件加载数据到内存数据库。
-     * 将持久化存储的数据恢复到内存中。
+     * 在数据库线程上把文件数据库恢复到内存连接。
      *
      * @throws RuntimeException 当数据加载失败时抛出
      */
-    private static void loadDataFromFileToMemory() {
+    private static void restoreFromFile() {
         Wthaigd.LOG.info("加载文件数据到内存");
         try {
             int result;
             SQLiteConnection mem = unwrapConnection();
             result = mem.getDatabase()
-                .restore("main", DATABASE_FILE.getAbsolutePath(), (remaining, pageCount) -> {
-                    int progress = (int) ((1 - (double) remaining / pageCount) * 100);
-                    Wthaigd.LOG.info("恢复进度: {}%, 剩余: {}/{}", progress, remaining, pageCount);
-                });
+                .restore("main", DATABASE_FILE.getAbsolutePath(), progressLogger("恢复"));
             Wthaigd.LOG.info("恢复结果: {}", result);
         } catch (SQLException e) {
             throw new RuntimeException("加载数据失败", e);
         }
     }
 
+    /**
+     * 创建备份/恢复的进度回调，每前进10%记录一次，避免每一步都输出日志。
+     *
+     * @param action 操作名称
+     * @return 进度回调
+     */
+    private static DB.ProgressObserver progressLogger(String action) {
+        int[] lastDecile = { -1 };
+        return (remaining, pageCount) -> {
+            int progress = pageCount == 0 ? 100 : (int) ((1 - (double) remaining / pageCount) * 100);
+            if (progress / 10 == lastDecile[0]) return;
+            lastDecile[0] = progress / 10;
+            Wthaigd.LOG.info("{}进度: {}%, 剩余: {}/{}", action, progress, remaining, pageCount);
+        };
+    }
+
+    /**
+     * 在数据库线程上重放快照之后的日志帧并打开日志用于追加。
+     * 新数据库没有可重放的内容，残留的日志属于已被删除的旧数据库，直接丢弃。
+     *
+     * @param isNewDataBase 是否为新创建的数据库
+     * @throws RuntimeException 当重放失败时抛出，数据库初始化随之失败
+     */
+    private static void openJournal(boolean isNewDataBase) {
+        ensureJournalState();
+        long applied = readAppliedLsn();
+        MutationJournal.ReplayResult replay;
+        if (isNewDataBase) {
+            if (JOURNAL_FILE.exists() && !JOURNAL_FILE.delete()) {
+                Wthaigd.LOG.warn("删除残留的日志文件失败: {}", JOURNAL_FILE);
+            }
+            replay = MutationJournal.replay(JOURNAL_FILE, applied, frame -> {});
+        } else {
+            try {
+                replay = MutationJournal.replay(JOURNAL_FILE, applied, SQLiteManager::replayFrame);
+            } catch (RuntimeException e) {
+                // 跳过失败的帧会丢掉它之后的所有提交，之后的快照会让丢失成为永久性的；
+                // 初始化失败后不会再保存快照，日志原样保留，排除问题后重新进入世界即可继续重放
+                throw new RuntimeException("重放日志失败，快照之后的提交无法恢复: " + JOURNAL_FILE, e);
+            }
+            if (replay.getReplayed() > 0) {
+                Wthaigd.LOG.info("已重放 {} 次快照之后的提交", replay.getReplayed());
+            }
+        }
+        try {
+            MutationJournal.open(
+                JOURNAL_FILE,
+                replay.getValidLength(),
+                Math.max(applied, replay.getLastLsn()),
+                ConfigHelper.getInt("sqlite.journal.flushIntervalMs", 100));
+        } catch (IOException e) {
+            Wthaigd.LOG.error("打开日志失败，快照之间的写入在崩溃时将会丢失", e);
+        }
+    }
+
+    /**
+     * 在一个事务中重放一帧日志，并记录其序号。
+     *
+     * @param frame 日志帧
+     */
+    private static void replayFrame(MutationJournal.Frame frame) {
+        inTransaction(() -> {
+            for (int i = 0; i < frame.getStatements()
+                .size(); i++) {
+                executeOnOwnerThread(
+                    frame.getStatements()
+                        .get(i),
+                    frame.getParams()
+                        .get(i));
+            }
+            writeAppliedLsn(frame.getLsn());
+            return null;
+        });
+    }
+
+    /**
+     * 创建记录日志序号的表。只能在数据库线程上调用。
+     */
+    private static void ensureJournalState() {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(
+                "CREATE TABLE IF NOT EXISTS " + JOURNAL_STATE_TABLE
+                    + " (id INTEGER PRIMARY KEY CHECK (id = 0), lsn INTEGER NOT NULL)");
+            statement.execute("INSERT OR IGNORE INTO " + JOURNAL_STATE_TABLE + " (id, lsn) VALUES (0, 0)");
+        } catch (SQLException e) {
+            throw new RuntimeException("创建日志序号表失败", e);
+        }
+    }
+
+    /**
+     * 读取数据库中已包含的最后一帧日志序号。只能在数据库线程上调用。
+     *
+     * @return 日志序号
+     */
+    private static long readAppliedLsn() {
+        try (Statement statement = connection.createStatement();
+            ResultSet rs = statement.executeQuery("SELECT lsn FROM " + JOURNAL_STATE_TABLE + " WHERE id = 0")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("读取日志序号失败", e);
+        }
+    }
+
+    /**
+     * 在当前事务中记录日志序号，不写入日志本身。只能在数据库线程上调用。
+     *
+     * @param lsn 日志序号
+     * @throws RuntimeException 当写入失败时抛出
+     */
+    private static void writeAppliedLsn(long lsn) {
+        try {
+            PreparedStatement ps = statementCache
+                .acquire("UPDATE " + JOURNAL_STATE_TABLE + " SET lsn = ? WHERE id = 0");
+            ps.setLong(1, lsn);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("写入日志序号失败", e);
+        }
+    }
+
+    /**
+     * 读取快照文件中已包含的最后一帧日志序号。
+     *
+     * @return 日志序号，读取失败时返回0（不删除任何帧）
+     */
+    private static long readSnapshotLsn() {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        try (Connection snapshot = DriverManager
+            .getConnection("jdbc:sqlite:" + DATABASE_FILE.getAbsolutePath(), config.toProperties());
+            Statement statement = snapshot.createStatement();
+            ResultSet rs = statement.executeQuery("SELECT lsn FROM " + JOURNAL_STATE_TABLE + " WHERE id = 0")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            Wthaigd.LOG.error("读取快照中的日志序号失败", e);
+            return 0;
+        }
+    }
+
     /**
      * 将内存数据库保存到文件。
-     * 将当前内存中的数据持久化到磁盘。
+     * 将当前内存中的数据持久化到磁盘；文件模式下改为截断式检查点。
      *
      * @throws RuntimeException 当数据保存失败时抛出
      */
     public static void saveDataFromMemoryToFile() {
         if (!isWorldLoaded) return;
+        // 初始化未成功完成时内存中的数据不完整，不能覆盖文件；新数据库由启动任务自身在数据库线程上保存
+        if (!DataBaseExecutor.isOwnerThread() && !DataBaseExecutor.isReady()) {
+            Wthaigd.LOG.warn("数据库未完成初始化，跳过保存");
+            return;
+        }
+        long version = changeCount.get();
+        if (!isMemoryMode) {
+            checkpoint("TRUNCATE", version);
+            return;
+        }
+        // 等待后台快照结束，避免其随后覆盖本次保存
+        SQLiteSnapshot.await();
+        if (!isDirty()) {
+            Wthaigd.LOG.info("数据库自上次保存后无变更，跳过保存");
+            return;
+        }
         Wthaigd.LOG.info("保存内存数据到文件");
+        DataBaseExecutor.run(() -> backupToFile(version));
+    }
+
+    /**
+     * 在数据库线程上把内存连接备份到文件。
+     *
+     * @param version 备份开始前的写语句计数
+     */
+    private static void backupToFile(long version) {
         try {
             int result;
             SQLiteConnection mem = unwrapConnection();
             ModFileHelper.ensureWorldDirExist();
             result = mem.getDatabase()
-                .backup("main", DATABASE_FILE.getAbsolutePath(), (remaining, pageCount) -> {
-                    int progress = (int) ((1 - (double) remaining / pageCount) * 100);
-                    Wthaigd.LOG.info("备份进度: {}%, 剩余: {}/{}", progress, remaining, pageCount);
-                });
+                .backup("main", DATABASE_FILE.getAbsolutePath(), progressLogger("备份"));
             Wthaigd.LOG.info("备份结果: {}", result);
+            markSaved(version);
+            // 在数据库线程上备份，已提交的帧都包含在文件中
+            MutationJournal.truncateThrough(Long.MAX_VALUE);
         } catch (SQLException | IOException e) {
             throw new RuntimeException("保存数据失败", e);
         }
     }
 
+    /**
+     * 请求保存数据。
+     * 文件模式下数据已实时写入，只做一次被动检查点；
+     * 内存模式下启用后台快照时只在服务器线程上提交快照请求，由快照线程分批写入文件；
+     * 否则退化为同步保存。
+     * 数据库自上次保存后没有任何写入时直接跳过，不产生磁盘 I/O。
+     */
+    public static void requestSave() {
+        if (!isWorldLoaded) return;
+        if (!DataBaseExecutor.isReady()) {
+            Wthaigd.LOG.info("数据库仍在后台初始化，跳过本次保存");
+            return;
+        }
+        if (!isDirty()) {
+            Wthaigd.LOG.info("数据库自上次保存后无变更，跳过保存");
+            return;
+        }
+        long version = changeCount.get();
+        if (!isMemoryMode) {
+            checkpoint("PASSIVE", version);
+            return;
+        }
+        // 启用日志时变更已记录在日志中，快照只需按较长的间隔进行
+        long interval = ConfigHelper.getInt("sqlite.journal.snapshotIntervalSeconds", 600) * 1_000_000_000L;
+        if (MutationJournal.isOpen() && System.nanoTime() - lastSnapshotNanos < interval) {
+            Wthaigd.LOG.info("变更已记录在日志中，距上次快照不足间隔，跳过本次保存");
+            return;
+        }
+        lastSnapshotNanos = System.nanoTime();
+        if (!ConfigHelper.getBoolean("sqlite.asyncSnapshot", true)) {
+            saveDataFromMemoryToFile();
+            return;
+        }
+        try {
+            ModFileHelper.ensureWorldDirExist();
+        } catch (IOException e) {
+            Wthaigd.LOG.error("创建世界数据目录失败", e);
+            return;
+        }
+        if (SQLiteSnapshot.isRunning()) {
+            Wthaigd.LOG.info("已有快照正在进行，合并本次保存请求");
+            return;
+        }
+        // 快照开始前的写入一定包含在快照中，完成后以此计数标记为已保存
+        SQLiteSnapshot.request(MEM_DB_URL, DATABASE_FILE, ConfigHelper.getInt("sqlite.snapshotPagesPerStep", 256))
+            .thenRun(() -> {
+                markSaved(version);
+                MutationJournal.truncateThrough(readSnapshotLsn());
+            });
+    }
+
+    /**
+     * 执行 WAL 检查点，将日志中的提交合并回主数据库文件。
+     *
+     * @param mode    检查点模式（PASSIVE、FULL、RESTART、TRUNCATE）
+     * @param version 检查点开始前的写语句计数
+     */
+    private static void checkpoint(String mode, long version) {
+        DataBaseExecutor.run(() -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA wal_checkpoint(" + mode + ")");
+                markSaved(version);
+            } catch (SQLException e) {
+                Wthaigd.LOG.error("WAL 检查点失败", e);
+            }
+        });
+    }
+
+    /**
+     * 数据库自上次保存后是否有变更。
+     *
+     * @return 是否有未保存的变更
+     */
+    public static boolean isDirty() {
+        return changeCount.get() > savedChangeCount;
+    }
+
+    /**
+     * 将指定计数之前的写入标记为已保存。
+     *
+     * @param version 保存开始前的写语句计数
+     */
+    private static synchronized void markSaved(long version) {
+        if (version > savedChangeCount) {
+            savedChangeCount = version;
+        }
+    }
+
+    /**
+     * 获取预编译语句缓存的统计信息。
+     *
+     * @return 统计信息，未初始化时返回提示
+     */
+    public static String getStatementCacheStats() {
+        return DataBaseExecutor.call(() -> statementCache != null ? statementCache.toString() : "语句缓存未初始化");
+    }
+
+    /**
+     * 当前是否为内存模式。
+     *
+     * @return 是否为内存模式
+     */
+    public static boolean isMemoryMode() {
+        return isMemoryMode;
+    }
+
     /**
      * 关闭数据库连接。
-     * 在关闭前会保存当前内存中的数据到文件。
+     * 在关闭前会等待数据库线程执行完已提交的任务，
+     * 并保存当前内存中的数据到文件，文件模式下则截断 WAL 日志。
      */
     public static void close() {
+        // 先执行完队列中尚未完成的写入，再做最后一次保存
+        DataBaseExecutor.shutdown();
         saveDataFromMemoryToFile();
+        MutationJournal.close();
         Wthaigd.LOG.info("关闭 SQLite 连接");
+        EntityCaches.getStats()
+            .forEach(Wthaigd.LOG::info);
+        Wthaigd.LOG.info(QueryCache.getStats());
+        if (statementCache != null) {
+            Wthaigd.LOG.info(statementCache.toString());
+            statementCache.close();
+            statementCache = null;
+        }
         try {
-            if (inMemoryConnection != null && !inMemoryConnection.isClosed()) {
-                inMemoryConnection.close();
+            if (connection != null && !connection.isClosed()) {
+                connection.close();
             }
         } catch (SQLException e) {
             Wthaigd.LOG.error("关闭连接失败", e);
@@ -127,31 +535,209 @@ public class SQLiteManager {
 
     /**
      * 执行无参数 SQL。
+     * 语句在数据库线程上执行，调用线程会等待结果。
+     * 语句从预编译语句缓存中获取，返回的 ResultSet 在同一 SQL 再次执行或语句被淘汰时关闭，
+     * 调用方应在此之前读取完毕。
+     * 结果集只能在数据库线程上读取：其他线程执行查询时结果集会在数据库线程上关闭并抛出异常，
+     * 此时应在 {@link DataBaseExecutor#call} 中读取，或使用 {@link #executeSafeSQLAsync} 并在回调中处理。
      *
      * @param sql    SQL 语句
      * @param params SQL 参数列表
      * @return 执行结果, 若为查询则返回 ResultSet, 否则返回影响的行数
+     * @throws IllegalStateException 当在数据库线程以外的线程上执行查询时抛出
      */
-    @SuppressWarnings("SqlSourceToSinkFlow")
     public static Object executeSafeSQL(String sql, Object... params) {
+        QueryPlanAuditor.record(sql, params);
+        Thread caller = Thread.currentThread();
+        return DataBaseExecutor.call(() -> {
+            Object result = executeOnOwnerThread(sql, params);
+            if (result instanceof ResultSet rs && Thread.currentThread() != caller) {
+                try {
+                    rs.close();
+                } catch (SQLException e) {
+                    Wthaigd.LOG.warn("关闭结果集失败: {}", sql, e);
+                }
+                throw new IllegalStateException("结果集不能跨线程返回，请在数据库线程上读取: " + sql);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 在数据库线程上异步执行 SQL，并在数据库线程上处理结果。
+     *
+     * @param sql     SQL 语句
+     * @param handler 结果处理函数，参数为 ResultSet 或影响的行数
+     * @param params  SQL 参数列表
+     * @param <R>     处理结果类型
+     * @return 处理结果
+     */
+    public static <R> CompletableFuture<R> executeSafeSQLAsync(String sql, Function<Object, R> handler,
+        Object... params) {
+        QueryPlanAuditor.record(sql, params);
+        return DataBaseExecutor.submit(() -> handler.apply(executeOnOwnerThread(sql, params)));
+    }
+
+    /**
+     * 在当前线程（数据库线程）上执行 SQL。
+     *
+     * @param sql    SQL 语句
+     * @param params SQL 参数列表
+     * @return 执行结果, 若为查询则返回 ResultSet, 否则返回影响的行数
+     */
+    @SuppressWarnings("SqlSourceToSinkFlow")
+    private static Object executeOnOwnerThread(String sql, Object... params) {
+        if (transactionDepth == 0 && MutationJournal.isOpen() && MutationJournal.isMutation(sql)) {
+            // 单条写语句也需要与日志序号在同一事务中提交
+            try {
+                return inTransaction(() -> executeOnOwnerThread(sql, params));
+            } catch (RuntimeException e) {
+                // 失败原因已在内层记录，保持自动提交模式下失败返回null的行为
+                return null;
+            }
+        }
         try {
-            PreparedStatement ps = inMemoryConnection.prepareStatement(sql);
+            PreparedStatement ps = statementCache.acquire(sql);
             if (params.length > 0) {
                 setParameters(ps, Arrays.asList(params));
             }
-            Wthaigd.LOG.info("执行 SQL: {}", ps.toString()); // TODO:正式发布前删除
+            // 热路径上只在调试级别记录语句和绑定的参数，避免每条语句都拼接日志
+            if (Wthaigd.LOG.isDebugEnabled()) Wthaigd.LOG.debug("执行 SQL: {}", ps.toString());
             boolean resultIsRs = ps.execute();
             if (resultIsRs) {
-                return ps.getResultSet();
+                ResultSet rs = ps.getResultSet();
+                statementCache.trackResultSet(sql, rs);
+                return rs;
+            }
+            if (Wthaigd.LOG.isDebugEnabled()) Wthaigd.LOG.debug("影响行数: {}", ps.getUpdateCount());
+            changeCount.incrementAndGet();
+            if (transactionDepth > 0) {
+                MutationJournal.record(sql, params);
             }
-            Wthaigd.LOG.info("影响行数: {}", ps.getUpdateCount()); // TODO:正式发布前删除
             return ps.getUpdateCount();
         } catch (SQLException e) {
             Wthaigd.LOG.error("执行 SQL 失败: {}", sql, e);
+            // 事务中的失败必须向上抛出，以便回滚整个事务
+            if (transactionDepth > 0) {
+                throw new RuntimeException("执行 SQL 失败: " + sql, e);
+            }
         }
         return null;
     }
 
+    /**
+     * 编译一条不进入语句缓存的预编译语句并设置参数，用于需要长时间持有结果集的游标。
+     * 只能在数据库线程上调用，调用方负责关闭返回的语句。
+     *
+     * @param sql    SQL 语句
+     * @param params SQL 参数列表
+     * @return 预编译语句
+     * @throws SQLException 当编译或设置参数失败时抛出
+     */
+    @SuppressWarnings("SqlSourceToSinkFlow")
+    static PreparedStatement prepareUncached(String sql, Object... params) throws SQLException {
+        QueryPlanAuditor.record(sql, params);
+        PreparedStatement ps = connection.prepareStatement(sql);
+        try {
+            setParameters(ps, Arrays.asList(params));
+        } catch (SQLException e) {
+            ps.close();
+            throw e;
+        }
+        return ps;
+    }
+
+    /**
+     * 在一个事务中执行任务。
+     * 最外层使用 BEGIN/COMMIT，嵌套调用使用保存点，任务抛出异常时回滚到对应层级并重新抛出。
+     * 任务在数据库线程上执行，其中的构建器操作会直接在该线程上运行。
+     *
+     * @param work 事务任务
+     * @param <R>  结果类型
+     * @return 任务结果
+     */
+    public static <R> R inTransaction(Supplier<R> work) {
+        return DataBaseExecutor.call(QueryPlanAuditor.traced(() -> {
+            boolean outermost = transactionDepth == 0;
+            Savepoint savepoint = null;
+            int journalMark = MutationJournal.mark();
+            try {
+                if (outermost) {
+                    connection.setAutoCommit(false);
+                } else {
+                    savepoint = connection.setSavepoint("wthaigd_sp_" + transactionDepth);
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("开启事务失败", e);
+            }
+            transactionDepth++;
+            try {
+                R result = work.get();
+                if (outermost) {
+                    // 日志序号与数据在同一事务中提交，快照因此能准确记录包含了哪些帧
+                    long lsn = MutationJournal.prepareCommit();
+                    if (lsn > 0) writeAppliedLsn(lsn);
+                    connection.commit();
+                    MutationJournal.commit(lsn);
+                } else {
+                    connection.releaseSavepoint(savepoint);
+                }
+                return result;
+            } catch (RuntimeException | SQLException e) {
+                rollback(outermost, savepoint);
+                MutationJournal.rollbackTo(journalMark);
+                if (e instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new RuntimeException("提交事务失败", e);
+            } finally {
+                transactionDepth--;
+                if (outermost) {
+                    restoreAutoCommit();
+                }
+            }
+        }));
+    }
+
+    /**
+     * 回滚事务或保存点。
+     *
+     * @param outermost 是否为最外层事务
+     * @param savepoint 嵌套事务的保存点
+     */
+    private static void rollback(boolean outermost, Savepoint savepoint) {
+        try {
+            if (outermost) {
+                connection.rollback();
+            } else {
+                connection.rollback(savepoint);
+                connection.releaseSavepoint(savepoint);
+            }
+        } catch (SQLException e) {
+            Wthaigd.LOG.error("回滚事务失败", e);
+        }
+    }
+
+    /**
+     * 事务结束后恢复自动提交。
+     */
+    private static void restoreAutoCommit() {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            Wthaigd.LOG.error("恢复自动提交失败", e);
+        }
+    }
+
+    /**
+     * 当前线程是否处于事务中。
+     *
+     * @return 是否处于事务中
+     */
+    public static boolean isInTransaction() {
+        return DataBaseExecutor.isOwnerThread() && transactionDepth > 0;
+    }
+
     /**
      * 解包 SQLiteConnection。
      *
@@ -160,7 +746,7 @@ public class SQLiteManager {
      */
     private static SQLiteConnection unwrapConnection() {
         try {
-            return inMemoryConnection.unwrap(SQLiteConnection.class);
+            return connection.unwrap(SQLiteConnection.class);
         } catch (SQLException e) {
             throw new RuntimeException("解包连接失败", e);
         }
@@ -176,7 +762,7 @@ public class SQLiteManager {
     private static void setParameters(PreparedStatement ps, List<Object> params) throws SQLException {
         if (params != null && !params.isEmpty()) {
             for (int i = 0; i < params.size(); i++) {
-                ps.setObject(i + 1, params.get(i));
+                TypeConverters.bind(ps, i + 1, params.get(i));
             }
         }
     }
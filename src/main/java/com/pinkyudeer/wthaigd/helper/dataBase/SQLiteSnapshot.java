@@ -0,0 +1,140 @@
+package com.pinkyudeer.wthaigd.helper.dataBase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.sqlite.SQLiteConnection;
+import org.sqlite.SQLiteErrorCode;
+
+import com.pinkyudeer.wthaigd.Wthaigd;
+
+/**
+ * 后台快照工具类。
+ * 在独立线程上通过第二条连接访问共享缓存的内存数据库，按页分批备份到临时文件，完成后原子替换目标文件。
+ * SQLite 备份在源库被提交修改时会自动重新开始，因此写出的文件始终是某一时刻的一致镜像。
+ * 快照运行期间的重复请求会合并到当前快照中。
+ */
+public class SQLiteSnapshot {
+
+    /** 备份步骤遇到 BUSY/LOCKED 时的等待时间（毫秒） */
+    private static final int BUSY_SLEEP_MILLIS = 10;
+    /** 备份步骤遇到 BUSY/LOCKED 时的最大重试次数 */
+    private static final int BUSY_MAX_RETRIES = 100;
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "wthaigd-db-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** 当前正在运行的快照 */
+    private static CompletableFuture<Integer> running;
+
+    /**
+     * 请求一次后台快照。
+     * 若已有快照正在运行，则直接返回该快照，不会重复备份。
+     *
+     * @param memUrl       共享缓存内存数据库 URL
+     * @param target       目标文件
+     * @param pagesPerStep 每一步复制的页数
+     * @return 快照结果
+     */
+    public static synchronized CompletableFuture<Integer> request(String memUrl, File target, int pagesPerStep) {
+        if (running != null && !running.isDone()) {
+            Wthaigd.LOG.info("已有快照正在进行，合并本次保存请求");
+            return running;
+        }
+        running = CompletableFuture.supplyAsync(() -> snapshot(memUrl, target, pagesPerStep), EXECUTOR);
+        return running;
+    }
+
+    /**
+     * 等待当前快照完成。
+     * 同步保存或关闭连接前调用，避免两次写入同一文件。
+     */
+    public static void await() {
+        CompletableFuture<Integer> current;
+        synchronized (SQLiteSnapshot.class) {
+            current = running;
+        }
+        if (current == null) return;
+        try {
+            current.join();
+        } catch (CompletionException e) {
+            Wthaigd.LOG.error("后台快照失败", e.getCause());
+        }
+    }
+
+    /**
+     * 是否有快照正在运行。
+     *
+     * @return 是否正在运行
+     */
+    public static synchronized boolean isRunning() {
+        return running != null && !running.isDone();
+    }
+
+    /**
+     * 在快照线程上执行备份。
+     *
+     * @param memUrl       共享缓存内存数据库 URL
+     * @param target       目标文件
+     * @param pagesPerStep 每一步复制的页数
+     * @return 备份结果
+     */
+    private static int snapshot(String memUrl, File target, int pagesPerStep) {
+        File temp = new File(target.getPath() + ".tmp");
+        long start = System.nanoTime();
+        int[] lastRemaining = { Integer.MAX_VALUE };
+        int[] restarts = { 0 };
+        try (Connection connection = DriverManager.getConnection(memUrl)) {
+            SQLiteConnection snapshotConnection = connection.unwrap(SQLiteConnection.class);
+            int result = snapshotConnection.getDatabase()
+                .backup("main", temp.getAbsolutePath(), (remaining, pageCount) -> {
+                    // 剩余页数回升说明源库有新的提交，备份已重新开始
+                    if (remaining > lastRemaining[0]) restarts[0]++;
+                    lastRemaining[0] = remaining;
+                }, BUSY_SLEEP_MILLIS, BUSY_MAX_RETRIES, pagesPerStep);
+            if (result != SQLiteErrorCode.SQLITE_OK.code) {
+                throw new SQLException("快照备份返回错误码: " + result);
+            }
+            replace(temp, target);
+            Wthaigd.LOG.info(
+                "后台快照完成，耗时 {} ms，重新开始 {} 次",
+                (System.nanoTime() - start) / 1_000_000,
+                restarts[0]);
+            return result;
+        } catch (SQLException | IOException e) {
+            throw new RuntimeException("后台快照失败", e);
+        }
+    }
+
+    /**
+     * 用临时文件原子替换目标文件，不支持原子移动时退化为普通替换。
+     *
+     * @param temp   临时文件
+     * @param target 目标文件
+     * @throws IOException 当替换失败时抛出
+     */
+    private static void replace(File temp, File target) throws IOException {
+        try {
+            Files.move(
+                temp.toPath(),
+                target.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.pinkyudeer.wthaigd.helper.dataBase;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
+
+import com.pinkyudeer.wthaigd.Wthaigd;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata.ColumnMetadata;
+import com.pinkyudeer.wthaigd.helper.dataBase.annotation.Column;
+import com.pinkyudeer.wthaigd.helper.dataBase.builder.AlterTableBuilder;
+import com.pinkyudeer.wthaigd.helper.dataBase.builder.CreateTableBuilder;
+import com.pinkyudeer.wthaigd.helper.dataBase.builder.SQLUtils.SQLColumnUtils;
+import com.pinkyudeer.wthaigd.helper.dataBase.builder.SQLUtils.SQLIndexUtils;
+import com.pinkyudeer.wthaigd.helper.dataBase.builder.SQLUtils.SQLTableUtils;
+import com.pinkyudeer.wthaigd.helper.dataBase.converter.TypeConverters.UuidStorage;
+
+/**
+ * 表结构迁移器。
+ * 把实体的 @Table/@Column 元数据与数据库中的实际结构（sqlite_master 和 pragma_table_info 等）比对，生成最少的迁移步骤：
+ * <ul>
+ * <li>缺少的表直接创建；</li>
+ * <li>新增的列能用 ADD COLUMN 添加时就地添加；</li>
+ * <li>删除或修改了列、外键变化，或新增的列是主键/唯一/外键列、没有默认值的非空列时，SQLite 无法就地修改，
+ * 按官方推荐的方式重建表：建新表、复制共有列、删除旧表、重命名，同一张表的所有变化合并为一次重建；</li>
+ * <li>索引按名称和列比对后增删。</li>
+ * </ul>
+ * 切换 UUID 存储格式会改变 UUID 列的类型，从而触发重建，复制数据时旧格式的 UUID 值一并转换为新格式。
+ * 所有步骤在同一个事务中执行，任一步骤失败时整体回滚，数据库保持迁移前的结构和数据。
+ * 实体定义的指纹和结构版本号记录在 {@value #VERSION_TABLE} 表中，指纹未变化时跳过比对。
+ */
+public class SchemaMigrator {
+
+    /** 记录表结构版本的表 */
+    public static final String VERSION_TABLE = "wthaigd_schema_version";
+    /** 重建表时新表的名称后缀 */
+    private static final String REBUILD_SUFFIX = "_wthaigd_rebuild";
+
+    private SchemaMigrator() {}
+
+    /**
+     * 把数据库的表结构迁移到实体定义的结构。
+     *
+     * @param entityClasses 实体类集合
+     * @return 执行的迁移步骤数，表结构已是最新时返回0
+     * @throws RuntimeException 当迁移失败时抛出，此时所有步骤均已回滚
+     */
+    public static int migrate(Collection<Class<?>> entityClasses) {
+        return DataBaseExecutor.call(() -> {
+            String fingerprint = fingerprint(entityClasses);
+            if (!queryStrings("SELECT name FROM sqlite_master WHERE type = 'table' AND name = ?", VERSION_TABLE)
+                .isEmpty()
+                && queryStrings("SELECT fingerprint FROM " + VERSION_TABLE + " WHERE id = 0").contains(fingerprint)) {
+                return 0;
+            }
+            // 事务中无法修改 foreign_keys，启用外键时删除被引用的旧表会级联删除子表的行，需要在事务外暂时关闭
+            boolean foreignKeys = queryLong("PRAGMA foreign_keys") == 1;
+            if (foreignKeys) execute("PRAGMA foreign_keys = OFF");
+            try {
+                return SQLiteManager.inTransaction(() -> migrateInTransaction(entityClasses, fingerprint, foreignKeys));
+            } finally {
+                if (foreignKeys) execute("PRAGMA foreign_keys = ON");
+            }
+        });
+    }
+
+    /**
+     * 根据已有表中 UUID 列声明的类型推断数据库当前的 UUID 存储格式。
+     * 不迁移表结构时据此让写入格式与已有的表一致，否则新格式的值会违反旧表的长度检查。
+     *
+     * @param entityClasses 实体类集合
+     * @return 存储格式，数据库中还没有 UUID 列时返回null
+     */
+    public static UuidStorage detectUuidStorage(Collection<Class<?>> entityClasses) {
+        return DataBaseExecutor.call(() -> {
+            for (Class<?> type : entityClasses) {
+                EntityMetadata<?> metadata = EntityMetadata.of(type);
+                for (ColumnMetadata column : metadata.getColumns()) {
+                    if (column.getJavaType() != UUID.class) continue;
+                    List<String> declared = queryStrings(
+                        "SELECT type FROM pragma_table_info(?) WHERE name = ?",
+                        metadata.getTableName(),
+                        column.getName());
+                    if (!declared.isEmpty()) {
+                        return "BLOB".equalsIgnoreCase(declared.get(0)) ? UuidStorage.BLOB : UuidStorage.TEXT;
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 在事务中比对并执行迁移步骤，然后记录新的结构版本。
+     *
+     * @param entityClasses 实体类集合
+     * @param fingerprint   实体定义的指纹
+     * @param foreignKeys   是否启用了外键约束，启用时提交前检查迁移后的外键
+     * @return 执行的迁移步骤数
+     */
+    private static int migrateInTransaction(Collection<Class<?>> entityClasses, String fingerprint,
+        boolean foreignKeys) {
+        List<String> steps = new ArrayList<>();
+        List<Class<?>> missing = new ArrayList<>();
+        for (Class<?> type : entityClasses) {
+            EntityMetadata<?> metadata = EntityMetadata.of(type);
+            List<String> tableSql = queryStrings(
+                "SELECT sql FROM sqlite_master WHERE type = 'table' AND name = ?",
+                metadata.getTableName());
+            if (tableSql.isEmpty()) {
+                missing.add(type);
+            } else {
+                planTable(metadata, tableSql.get(0), steps);
+            }
+        }
+        if (!missing.isEmpty()) {
+            // 多个新表交给建表构建器按外键依赖排序
+            steps.addAll(
+                new CreateTableBuilder<>(null).addAll(missing)
+                    .build()
+                    .getSqls());
+        }
+
+        for (String step : steps) {
+            Wthaigd.LOG.info("表结构迁移: {}", step);
+            execute(step);
+        }
+        if (foreignKeys) {
+            List<String> violations = queryStrings("PRAGMA foreign_key_check");
+            if (!violations.isEmpty()) {
+                throw new IllegalStateException("迁移后存在违反外键约束的行，涉及表: " + new HashSet<>(violations));
+            }
+        }
+
+        execute(
+            "CREATE TABLE IF NOT EXISTS " + VERSION_TABLE
+                + " (id INTEGER PRIMARY KEY CHECK (id = 0), version INTEGER NOT NULL,"
+                + " fingerprint TEXT NOT NULL, migrated_at INTEGER NOT NULL)");
+        execute("INSERT OR IGNORE INTO " + VERSION_TABLE + " VALUES (0, 0, '', 0)");
+        long version = queryLong("SELECT version FROM " + VERSION_TABLE + " WHERE id = 0") + 1;
+        execute(
+            "UPDATE " + VERSION_TABLE + " SET version = ?, fingerprint = ?, migrated_at = ? WHERE id = 0",
+            version,
+            fingerprint,
+            System.currentTimeMillis());
+        Wthaigd.LOG.info("表结构版本更新为 {}，共执行 {} 个迁移步骤", version, steps.size());
+        return steps.size();
+    }
+
+    /**
+     * 比对已存在的表，生成加列、重建和索引的迁移步骤。
+     *
+     * @param metadata 实体元数据
+     * @param tableSql sqlite_master 中记录的建表语句
+     * @param steps    迁移步骤列表，生成的步骤会添加到这个列表中
+     */
+    private static void planTable(EntityMetadata<?> metadata, String tableSql, List<String> steps) {
+        String table = metadata.getTableName();
+        List<ColumnMetadata> columns = metadata.getColumns();
+        List<String> definitions = SQLTableUtils.buildColumnDefinitions(metadata);
+        List<String> foreignKeys = buildForeignKeys(metadata);
+
+        Set<String> existing = queryStrings("SELECT name FROM pragma_table_info(?)", table).stream()
+            .map(name -> name.toLowerCase(Locale.ROOT))
+            .collect(Collectors.toSet());
+        Set<String> expected = columns.stream()
+            .map(
+                column -> column.getName()
+                    .toLowerCase(Locale.ROOT))
+            .collect(Collectors.toSet());
+
+        List<String> reasons = new ArrayList<>();
+        for (String name : existing) {
+            if (!expected.contains(name)) reasons.add("删除列 " + name);
+        }
+        List<Integer> added = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnMetadata column = columns.get(i);
+            if (existing.contains(
+                column.getName()
+                    .toLowerCase(Locale.ROOT))) {
+                // 列定义由同一个生成器产生，原样出现在建表语句中说明类型和约束都没有变化
+                if (!containsDefinition(tableSql, definitions.get(i))) reasons.add("修改列 " + column.getName());
+            } else if (canAddColumn(column)) {
+                added.add(i);
+            } else {
+                reasons.add("新增无法就地添加的列 " + column.getName());
+            }
+        }
+        long foreignKeyCount = queryLong("SELECT COUNT(DISTINCT id) FROM pragma_foreign_key_list(?)", table);
+        if (foreignKeyCount != foreignKeys.size() || !foreignKeys.stream()
+            .allMatch(tableSql::contains)) {
+            reasons.add("外键变化");
+        }
+
+        if (!reasons.isEmpty()) {
+            Wthaigd.LOG.info("表 {} 需要重建: {}", table, String.join(", ", reasons));
+            planRebuild(metadata, existing, definitions, foreignKeys, steps);
+            return;
+        }
+        if (!added.isEmpty()) {
+            AlterTableBuilder<?> alter = new AlterTableBuilder<>(null).table(table);
+            for (int i : added) {
+                String name = columns.get(i)
+                    .getName();
+                alter.addColumn(
+                    name,
+                    definitions.get(i)
+                        .substring(name.length() + 1));
+            }
+            steps.addAll(
+                alter.build()
+                    .getSqls());
+        }
+        planIndexes(metadata, steps);
+    }
+
+    /**
+     * 生成重建表的迁移步骤：以新结构建表，复制新旧结构共有的列，删除旧表后把新表重命名为原表名，最后重建索引。
+     *
+     * @param metadata    实体元数据
+     * @param existing    旧表的列名（小写）
+     * @param definitions 新结构的列定义
+     * @param foreignKeys 新结构的外键约束
+     * @param steps       迁移步骤列表，生成的步骤会添加到这个列表中
+     */
+    private static void planRebuild(EntityMetadata<?> metadata, Set<String> existing, List<String> definitions,
+        List<String> foreignKeys, List<String> steps) {
+        String table = metadata.getTableName();
+        String rebuilt = table + REBUILD_SUFFIX;
+        List<ColumnMetadata> common = metadata.getColumns()
+            .stream()
+            .filter(
+                column -> existing.contains(
+                    column.getName()
+                        .toLowerCase(Locale.ROOT)))
+            .collect(Collectors.toList());
+
+        steps.add(SQLTableUtils.generateCreateTableSql(rebuilt, definitions, foreignKeys));
+        if (!common.isEmpty()) {
+            // UUID 列在复制时转换为当前的存储格式
+            steps.add(
+                String.format(
+                    "INSERT INTO %s (%s) SELECT %s FROM %s",
+                    rebuilt,
+                    common.stream()
+                        .map(ColumnMetadata::getName)
+                        .collect(Collectors.joining(", ")),
+                    common.stream()
+                        .map(SQLColumnUtils::getCopyExpression)
+                        .collect(Collectors.joining(", ")),
+                    table));
+        }
+        steps.add("DROP TABLE " + table);
+        steps.add(String.format("ALTER TABLE %s RENAME TO %s", rebuilt, table));
+        // 旧表的索引随旧表一起删除
+        SQLIndexUtils.addIndexes(metadata.getIndexes(), table, steps);
+    }
+
+    /**
+     * 比对索引：删除实体中已不存在或列发生变化的索引，创建缺少的索引。
+     * 只处理通过 CREATE INDEX 创建的索引，主键和唯一约束自动生成的索引随表结构变化。
+     *
+     * @param metadata 实体元数据
+     * @param steps    迁移步骤列表，生成的步骤会添加到这个列表中
+     */
+    private static void planIndexes(EntityMetadata<?> metadata, List<String> steps) {
+        String table = metadata.getTableName();
+        Map<String, List<String>> expected = metadata.getIndexes();
+        Map<String, List<String>> create = new LinkedHashMap<>(expected);
+        for (String index : queryStrings("SELECT name FROM pragma_index_list(?) WHERE origin = 'c'", table)) {
+            List<String> columns = expected.get(index);
+            List<String> actual = queryStrings("SELECT name FROM pragma_index_info(?) ORDER BY seqno", index);
+            if (columns != null && lowerCase(actual).equals(lowerCase(columns))) {
+                create.remove(index);
+                continue;
+            }
+            steps.add("DROP INDEX " + index);
+        }
+        SQLIndexUtils.addIndexes(create, table, steps);
+    }
+
+    /**
+     * 列能否用 ALTER TABLE ADD COLUMN 添加。
+     * SQLite 不允许添加主键或唯一列、默认值不是常量的列、没有非空默认值的非空列；外键以表级约束声明，同样需要重建表。
+     *
+     * @param column 列元数据
+     * @return 能就地添加时返回true
+     */
+    private static boolean canAddColumn(ColumnMetadata column) {
+        Column annotation = column.getColumn();
+        if (annotation.isPrimaryKey() || annotation.isUnique() || column.getReference() != null) return false;
+        String defaultValue = annotation.defaultValue()
+            .trim();
+        if (defaultValue.startsWith("(") || defaultValue.toUpperCase(Locale.ROOT)
+            .startsWith("CURRENT_")) {
+            return false;
+        }
+        boolean notNull = column.getField()
+            .getAnnotation(Nonnull.class) != null;
+        return !notNull || !defaultValue.isEmpty() && !"NULL".equalsIgnoreCase(defaultValue);
+    }
+
+    /**
+     * 建表语句中是否原样包含某个列定义。列定义之间以 ", " 分隔，ADD COLUMN 添加的列同样以 ", " 追加在末尾。
+     *
+     * @param tableSql   建表语句
+     * @param definition 列定义
+     * @return 包含时返回true
+     */
+    private static boolean containsDefinition(String tableSql, String definition) {
+        int from = 0;
+        int index;
+        while ((index = tableSql.indexOf(definition, from)) >= 0) {
+            int end = index + definition.length();
+            boolean startsColumn = tableSql.startsWith("(", index - 1) || tableSql.startsWith(", ", index - 2);
+            boolean endsColumn = end < tableSql.length()
+                && (tableSql.charAt(end) == ',' || tableSql.charAt(end) == ')');
+            if (startsColumn && endsColumn) return true;
+            from = index + 1;
+        }
+        return false;
+    }
+
+    /**
+     * 生成实体的外键约束，与建表构建器一样按引用表合并。
+     *
+     * @param metadata 实体元数据
+     * @return 外键约束列表
+     */
+    private static List<String> buildForeignKeys(EntityMetadata<?> metadata) {
+        return metadata.getReferences()
+            .stream()
+            .collect(
+                Collectors.groupingBy(
+                    column -> SQLColumnUtils.getReferencedTableName(column.getReference()),
+                    LinkedHashMap::new,
+                    Collectors.toList()))
+            .entrySet()
+            .stream()
+            .map(entry -> SQLTableUtils.generateForeignKeySql(entry.getValue(), entry.getKey()))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * 计算实体定义的指纹：所有建表和索引语句排序后的 SHA-256。
+     *
+     * @param entityClasses 实体类集合
+     * @return 十六进制指纹
+     */
+    private static String fingerprint(Collection<Class<?>> entityClasses) {
+        List<String> sqls = new ArrayList<>(
+            new CreateTableBuilder<>(null).addAll(entityClasses)
+                .build()
+                .getSqls());
+        Collections.sort(sqls);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(
+                    String.join("\n", sqls)
+                        .getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("计算表结构指纹失败", e);
+        }
+    }
+
+    /**
+     * 把字符串列表转为小写，用于不区分大小写地比较列名。
+     *
+     * @param values 字符串列表
+     * @return 小写的字符串列表
+     */
+    private static List<String> lowerCase(List<String> values) {
+        return values.stream()
+            .map(value -> value.toLowerCase(Locale.ROOT))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * 执行语句，失败时抛出异常。
+     *
+     * @param sql    SQL 语句
+     * @param params SQL 参数
+     */
+    private static void execute(String sql, Object... params) {
+        if (SQLiteManager.executeSafeSQL(sql, params) == null) {
+            throw new IllegalStateException("执行 SQL 失败: " + sql);
+        }
+    }
+
+    /**
+     * 查询第一列的所有值。
+     *
+     * @param sql    查询语句
+     * @param params SQL 参数
+     * @return 第一列的值列表
+     */
+    private static List<String> queryStrings(String sql, Object... params) {
+        List<String> result = new ArrayList<>();
+        try (ResultSet rs = (ResultSet) SQLiteManager.executeSafeSQL(sql, params)) {
+            if (rs == null) throw new IllegalStateException("查询失败: " + sql);
+            while (rs.next()) {
+                result.add(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("读取表结构失败: " + sql, e);
+        }
+        return result;
+    }
+
+    /**
+     * 查询第一行第一列的整数值。
+     *
+     * @param sql    查询语句
+     * @param params SQL 参数
+     * @return 整数值，没有结果时返回0
+     */
+    private static long queryLong(String sql, Object... params) {
+        try (ResultSet rs = (ResultSet) SQLiteManager.executeSafeSQL(sql, params)) {
+            if (rs == null) throw new IllegalStateException("查询失败: " + sql);
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("读取表结构失败: " + sql, e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.pinkyudeer.wthaigd.helper.dataBase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.pinkyudeer.wthaigd.Wthaigd;
+
+import lombok.Getter;
+
+/**
+ * 预编译语句缓存。
+ * 以 SQL 文本为键复用已编译的 PreparedStatement，按最近最少使用顺序淘汰，
+ * 淘汰或关闭时会同时关闭语句及其返回过的结果集。
+ * 该类不是线程安全的，调用方需要保证串行访问。
+ */
+public class StatementCache {
+
+    /**
+     * 缓存条目，记录语句及其最近一次返回的结果集
+     */
+    private static class Entry {
+
+        private final PreparedStatement statement;
+        private ResultSet lastResultSet;
+
+        private Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        /**
+         * 关闭最近一次返回的结果集。
+         */
+        private void closeResultSet() {
+            if (lastResultSet == null) return;
+            try {
+                lastResultSet.close();
+            } catch (SQLException e) {
+                Wthaigd.LOG.error("关闭结果集失败", e);
+            }
+            lastResultSet = null;
+        }
+
+        /**
+         * 关闭结果集和语句。
+         */
+        private void close() {
+            closeResultSet();
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                Wthaigd.LOG.error("关闭预编译语句失败", e);
+            }
+        }
+    }
+
+    private final Connection connection;
+    private final int capacity;
+    // accessOrder = true，迭代顺序即最近最少使用顺序
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Getter
+    private long hits = 0;
+    @Getter
+    private long misses = 0;
+    @Getter
+    private long evictions = 0;
+
+    /**
+     * 构造函数。
+     *
+     * @param connection 数据库连接
+     * @param capacity   最多缓存的语句数量
+     */
+    public StatementCache(Connection connection, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("语句缓存容量必须大于0");
+        }
+        this.connection = connection;
+        this.capacity = capacity;
+    }
+
+    /**
+     * 获取 SQL 对应的预编译语句。
+     * 命中缓存时关闭上次返回的结果集并清空参数，未命中时编译新语句并按需淘汰最旧的语句。
+     *
+     * @param sql SQL 语句
+     * @return 可直接设置参数并执行的预编译语句
+     * @throws SQLException 当编译失败时抛出
+     */
+    public PreparedStatement acquire(String sql) throws SQLException {
+        Entry entry = entries.get(sql);
+        if (entry != null && !entry.statement.isClosed()) {
+            hits++;
+            entry.closeResultSet();
+            entry.statement.clearParameters();
+            return entry.statement;
+        }
+        misses++;
+        entry = new Entry(connection.prepareStatement(sql));
+        entries.put(sql, entry);
+        evictIfNeeded();
+        return entry.statement;
+    }
+
+    /**
+     * 记录语句返回的结果集，以便在复用或淘汰时确定地关闭。
+     *
+     * @param sql       SQL 语句
+     * @param resultSet 结果集
+     */
+    public void trackResultSet(String sql, ResultSet resultSet) {
+        Entry entry = entries.get(sql);
+        if (entry != null) {
+            entry.lastResultSet = resultSet;
+        }
+    }
+
+    /**
+     * 淘汰超出容量的最久未使用语句。
+     */
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet()
+            .iterator();
+        while (entries.size() > capacity && iterator.hasNext()) {
+            Entry eldest = iterator.next()
+                .getValue();
+            iterator.remove();
+            eldest.close();
+            evictions++;
+        }
+    }
+
+    /**
+     * 关闭并清空所有缓存的语句。
+     */
+    public void close() {
+        entries.values()
+            .forEach(Entry::close);
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 获取缓存命中率。
+     *
+     * @return 命中率，范围 0~1，没有访问时为 0
+     */
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "语句缓存: %d/%d 条, 命中 %d, 未命中 %d, 命中率 %.1f%%, 淘汰 %d",
+            entries.size(),
+            capacity,
+            hits,
+            misses,
+            getHitRate() * 100,
+            evictions);
+    }
+}
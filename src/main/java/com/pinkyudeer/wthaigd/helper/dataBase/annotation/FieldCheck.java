@@ -34,7 +34,7 @@ public @interface FieldCheck {
         RANGE, // 范围
         GLOB, // GLOB子句
         LENGTH, // 字符串长度（用范围）
-        UUID, // UUID（36位长度校验）
+        UUID, // UUID（BLOB 存储时校验16字节，文本存储时校验36位长度）
         ENUM // 枚举值
     }
 }
@@ -13,9 +13,12 @@ import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.tuple.Pair;
 
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata.ColumnMetadata;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntitySnapshot;
 import com.pinkyudeer.wthaigd.helper.dataBase.SQLHelper;
-import com.pinkyudeer.wthaigd.helper.dataBase.annotation.Column;
-import com.pinkyudeer.wthaigd.helper.dataBase.annotation.Table;
+import com.pinkyudeer.wthaigd.helper.dataBase.cache.EntityCaches;
+import com.pinkyudeer.wthaigd.helper.dataBase.cache.QueryCache;
 
 /**
  * 基础构建器抽象类。
@@ -28,6 +31,7 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
 
     protected final T entity;
     protected final T oldEntity;
+    protected final EntitySnapshot<T> snapshot;
     protected final Class<T> entityClass;
     protected String whereClause = "";
     protected List<Object> params = new ArrayList<>();
@@ -63,6 +67,18 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
             }
         }
 
+        /**
+         * 按 {@link #buildClauseAndCollectParams} 的顺序收集参数，不拼接SQL。
+         *
+         * @param paramsResult 存储参数的列表
+         */
+        public void collectParams(List<Object> paramsResult) {
+            paramsResult.addAll(groupParams);
+            for (WhereGroup subGroup : subGroups) {
+                subGroup.collectParams(paramsResult);
+            }
+        }
+
         /**
          * 构建WHERE子句并收集所有参数
          *
@@ -96,6 +112,25 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
     protected WhereGroup currentGroup = new WhereGroup();
     protected WhereGroup rootGroup = currentGroup;
 
+    /**
+     * 条件形态中的结构标记
+     */
+    private enum ShapeToken {
+        AND_GROUP,
+        OR_GROUP,
+        END_GROUP,
+        BY_ID
+    }
+
+    /**
+     * 条件形态：按添加顺序记录的列名、操作符、IN 参数个数和条件组的开闭，不含参数值。
+     * 形态相同的条件生成的 WHERE 子句相同，用作 {@link SqlTemplates#statement} 的缓存键。
+     */
+    private final List<Object> whereShape = new ArrayList<>();
+    private int conditionCount = 0;
+    /** 比对模式的差异条件是否已加入，同一构建器多次执行时只加入一次 */
+    private boolean compareConditionsApplied = false;
+
     /**
      * 基于实体对象的构造函数
      *
@@ -105,6 +140,7 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
     protected BaseBuilder(T entity) {
         this.entity = entity;
         this.oldEntity = null;
+        this.snapshot = null;
         this.entityClass = entity != null ? (Class<T>) entity.getClass() : null;
     }
 
@@ -116,6 +152,7 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
     protected BaseBuilder(Class<T> entityClass) {
         this.entity = null;
         this.oldEntity = null;
+        this.snapshot = null;
         this.entityClass = entityClass;
         this.compareMode = false;
     }
@@ -130,6 +167,22 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
     protected BaseBuilder(T entity, T oldEntity) {
         this.entity = entity;
         this.oldEntity = oldEntity;
+        this.snapshot = null;
+        this.entityClass = entity != null ? (Class<T>) entity.getClass() : null;
+        this.compareMode = true;
+    }
+
+    /**
+     * 基于快照比对模式的构造函数
+     *
+     * @param entity   当前实体
+     * @param snapshot 实体修改前的快照（用于比对）
+     */
+    @SuppressWarnings("unchecked")
+    protected BaseBuilder(T entity, EntitySnapshot<T> snapshot) {
+        this.entity = entity;
+        this.oldEntity = null;
+        this.snapshot = snapshot;
         this.entityClass = entity != null ? (Class<T>) entity.getClass() : null;
         this.compareMode = true;
     }
@@ -145,20 +198,19 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
      * @return 表名
      */
     protected String getTableName() {
-        Class<?> clazz = entityClass;
-        if (clazz == null && entity != null) {
-            clazz = entity.getClass();
-        }
-
-        if (clazz == null) {
+        if (entityClass == null) {
             throw new IllegalStateException("无法确定表名：entityClass和entity均为null");
         }
+        return getMetadata().getTableName();
+    }
 
-        Table table = clazz.getAnnotation(Table.class);
-        if (table == null) {
-            throw new IllegalArgumentException("类必须使用@Table注解: " + clazz.getName());
-        }
-        return table.name();
+    /**
+     * 获取实体类的元数据
+     *
+     * @return 实体元数据
+     */
+    protected EntityMetadata<T> getMetadata() {
+        return EntityMetadata.of(entityClass);
     }
 
     /**
@@ -171,24 +223,8 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
         if (targetEntity == null) {
             return Collections.emptyMap();
         }
-
-        Map<String, Object> values = new HashMap<>();
-        for (Field field : targetEntity.getClass()
-            .getDeclaredFields()) {
-            Column column = field.getAnnotation(Column.class);
-            if (column != null) {
-                field.setAccessible(true);
-                try {
-                    Object value = field.get(targetEntity);
-                    if (value != null) {
-                        values.put(column.name(), value);
-                    }
-                } catch (IllegalAccessException e) {
-                    throw new RuntimeException("无法访问字段: " + field.getName(), e);
-                }
-            }
-        }
-        return values;
+        return EntityMetadata.of(targetEntity.getClass())
+            .getColumnValues(targetEntity);
     }
 
     /**
@@ -201,11 +237,14 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
     }
 
     /**
-     * 获取实体与旧实体的差异字段和值
+     * 获取实体与旧实体（或快照）的差异字段和值
      *
      * @return 差异的字段名和新值的映射
      */
     protected Map<String, Object> getDifferentValues() {
+        if (entity != null && snapshot != null) {
+            return snapshot.getChangedValues(entity);
+        }
         if (entity == null || oldEntity == null) {
             return Collections.emptyMap();
         }
@@ -228,6 +267,22 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
         return differentValues;
     }
 
+    /**
+     * 比对模式下将差异字段作为等值条件加入 WHERE 子句，新值为 null 时使用 IS NULL。
+     * 条件只在第一次执行时加入，重复执行同一构建器不会叠加条件，也不会产生新的查询形态。
+     */
+    protected void applyCompareConditions() {
+        if (!compareMode || oldEntity == null || compareConditionsApplied) return;
+        compareConditionsApplied = true;
+        for (Map.Entry<String, Object> entry : getDifferentValues().entrySet()) {
+            if (entry.getValue() == null) {
+                where(entry.getKey(), SQLHelper.Operator.IS_NULL, null);
+            } else {
+                where(entry.getKey(), SQLHelper.Operator.EQ, entry.getValue());
+            }
+        }
+    }
+
     /**
      * 获取字段对应的列名，根据needFullName参数决定是否返回完整列名（表名.列名）
      *
@@ -240,11 +295,12 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
             throw new IllegalArgumentException("字段不能为null");
         }
 
-        Column column = field.getAnnotation(Column.class);
+        ColumnMetadata column = EntityMetadata.of(field.getDeclaringClass())
+            .getColumn(field);
         if (column == null) {
             throw new IllegalArgumentException("字段必须使用@Column注解: " + field.getName());
         }
-        String columnName = column.name();
+        String columnName = column.getName();
 
         if (needFullName) {
             String tableName = getTableName();
@@ -274,8 +330,10 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
             return Collections.emptyList();
         }
 
-        return Arrays.stream(clazz.getDeclaredFields())
-            .filter(field -> field.isAnnotationPresent(Column.class))
+        return EntityMetadata.of(clazz)
+            .getColumns()
+            .stream()
+            .map(ColumnMetadata::getField)
             .collect(Collectors.toList());
     }
 
@@ -349,6 +407,10 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
         }
 
         currentGroup.addCondition(whereCondition, conditionParams.toArray());
+        whereShape.add(columnName);
+        whereShape.add(operator);
+        if (value instanceof Collection<?>values) whereShape.add(values.size());
+        conditionCount++;
     }
 
     /**
@@ -367,19 +429,11 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
      * @return 主键字段
      */
     protected Field getPrimaryKeyField() {
-        final Class<?> clazz = entityClass != null ? entityClass : (entity != null ? entity.getClass() : null);
-
-        if (clazz == null) {
+        if (entityClass == null) {
             throw new IllegalStateException("无法确定主键字段：entityClass和entity均为null");
         }
-
-        return Arrays.stream(clazz.getDeclaredFields())
-            .filter(field -> {
-                Column column = field.getAnnotation(Column.class);
-                return column != null && column.isPrimaryKey();
-            })
-            .findFirst()
-            .orElseThrow(() -> new IllegalStateException("实体类没有主键字段: " + clazz.getName()));
+        return getMetadata().requirePrimaryKey()
+            .getField();
     }
 
     /**
@@ -388,25 +442,43 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
      * @return 主键条件SQL和参数
      */
     protected Pair<String, Object> buildPrimaryKeyCondition() {
-        Field primaryKeyField = getPrimaryKeyField();
-        String primaryKeyColumn = getColumnName(primaryKeyField);
-        primaryKeyField.setAccessible(true);
-
         if (entity == null) {
             throw new IllegalStateException("使用byId()时实体对象不能为null");
         }
+        ColumnMetadata primaryKey = getMetadata().requirePrimaryKey();
 
-        try {
-            Object primaryKeyValue = primaryKeyField.get(entity);
-            if (primaryKeyValue == null) {
-                throw new IllegalStateException("主键值不能为空");
-            }
-            return Pair.of(primaryKeyColumn + " = ?", primaryKeyValue);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException("无法访问主键字段: " + primaryKeyField.getName(), e);
+        Object primaryKeyValue = primaryKey.get(entity);
+        if (primaryKeyValue == null) {
+            throw new IllegalStateException("主键值不能为空");
+        }
+        return Pair.of(primaryKey.getName() + " = ?", primaryKeyValue);
+    }
+
+    /**
+     * 写入后使实体在主键缓存中的条目失效，并使读取过该表的查询结果缓存失效。
+     * 实体没有主键或主键为空时清空整个类型的主键缓存。
+     *
+     * @param target 被写入的实体
+     */
+    protected void invalidateCache(T target) {
+        ColumnMetadata primaryKey = getMetadata().getPrimaryKey();
+        Object key = primaryKey == null || target == null ? null : primaryKey.get(target);
+        if (key == null) {
+            invalidateCache();
+        } else {
+            EntityCaches.invalidate(entityClass, key);
+            QueryCache.bumpVersion(getTableName());
         }
     }
 
+    /**
+     * 写入影响的行无法确定时（按条件更新或删除），清空整个类型的主键缓存，并使读取过该表的查询结果缓存失效。
+     */
+    protected void invalidateCache() {
+        EntityCaches.invalidateAll(entityClass);
+        QueryCache.bumpVersion(getTableName());
+    }
+
     /**
      * 开始一个新的条件组。
      *
@@ -418,6 +490,7 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
         newGroup.isOr = isOr;
         currentGroup.addSubGroup(newGroup);
         currentGroup = newGroup;
+        whereShape.add(isOr ? ShapeToken.OR_GROUP : ShapeToken.AND_GROUP);
         return self();
     }
 
@@ -449,6 +522,7 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
         WhereGroup parent = findParentGroup(this.currentGroup);
         if (parent != null) {
             currentGroup = parent;
+            whereShape.add(ShapeToken.END_GROUP);
         }
         return self();
     }
@@ -516,6 +590,45 @@ public abstract class BaseBuilder<T, B extends BaseBuilder<T, B>> {
         return sql;
     }
 
+    /**
+     * 生成带条件语句的形态键：语句类型、实体类、条件形态，以及影响SQL文本的其他部分。
+     *
+     * @param kind  语句类型
+     * @param parts 影响SQL文本的其他部分，必须实现 equals 和 hashCode 且之后不再修改
+     * @return 形态键
+     */
+    protected List<Object> shapeKey(String kind, Object... parts) {
+        List<Object> key = new ArrayList<>(whereShape.size() + parts.length + 3);
+        key.add(kind);
+        key.add(entityClass);
+        if (usePrimaryKey) {
+            key.add(ShapeToken.BY_ID);
+        } else {
+            key.addAll(whereShape);
+        }
+        // 条件形态与其他部分之间的分隔，避免两者的边界不同却拼出相同的键
+        key.add(ShapeToken.END_GROUP);
+        key.addAll(Arrays.asList(parts));
+        return key;
+    }
+
+    /**
+     * 按 {@link #addWhereClause} 的顺序收集条件参数，不拼接SQL，用于SQL文本来自模板缓存时。
+     *
+     * @param executeParams 执行参数列表，供函数添加参数
+     * @param requireWhere  是否要求必须有条件
+     * @param operationName 操作名称，仅在抛出异常时使用
+     */
+    protected void collectWhereParams(List<Object> executeParams, boolean requireWhere, String operationName) {
+        if (usePrimaryKey) {
+            executeParams.add(buildPrimaryKeyCondition().getRight());
+        } else if (conditionCount > 0) {
+            rootGroup.collectParams(executeParams);
+        } else if (requireWhere) {
+            throw new IllegalStateException(operationName + "操作必须指定条件（使用byId()或where条件）");
+        }
+    }
+
     /**
      * 执行SQL操作。
      *
@@ -85,6 +85,15 @@ public abstract class BaseDDLBuilder<T, B extends BaseDDLBuilder<T, B>> {
         return (B) this;
     }
 
+    /**
+     * 获取构建出的SQL语句，需要先调用 {@link #build()}。
+     *
+     * @return SQL语句列表
+     */
+    public List<String> getSqls() {
+        return Collections.unmodifiableList(sqls);
+    }
+
     /**
      * 处理构建逻辑，由子类实现。
      */
@@ -92,13 +101,15 @@ public abstract class BaseDDLBuilder<T, B extends BaseDDLBuilder<T, B>> {
 
     /**
      * 执行SQL语句。
+     * 所有语句在同一个事务中执行，任一语句失败时整体回滚。
      *
      * @return 执行结果
      */
     public Integer execute() {
-        return sqls.stream()
-            .mapToInt(sql -> (Integer) SQLiteManager.executeSafeSQL(sql))
-            .sum();
+        return SQLiteManager.inTransaction(
+            () -> sqls.stream()
+                .mapToInt(sql -> (Integer) SQLiteManager.executeSafeSQL(sql))
+                .sum());
     }
 
     /**
@@ -0,0 +1,111 @@
+package com.pinkyudeer.wthaigd.helper.dataBase.builder;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.pinkyudeer.wthaigd.helper.dataBase.DataBaseExecutor;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata;
+import com.pinkyudeer.wthaigd.helper.dataBase.QueryPlanAuditor;
+import com.pinkyudeer.wthaigd.helper.dataBase.SQLiteManager;
+
+/**
+ * 批量插入构建器。
+ * 按非空列集合对实体分组，每组生成多行 INSERT 语句，并按 SQLite 绑定参数上限分块，
+ * 所有语句在同一个事务中执行。SQL 文本来自 {@link SqlTemplates}，相同列集合和行数的分块共用同一条 SQL，
+ * 可以复用预编译语句。
+ *
+ * @param <T> 实体类型
+ */
+public class BatchInsertBuilder<T> extends BaseBuilder<T, BatchInsertBuilder<T>> {
+
+    /** SQLite 默认的绑定参数上限（SQLITE_MAX_VARIABLE_NUMBER 的保守值） */
+    public static final int MAX_BOUND_PARAMETERS = 999;
+
+    private final List<T> entities;
+
+    /**
+     * 构造函数。
+     *
+     * @param entities 要插入的实体对象列表，必须为同一类型
+     */
+    public BatchInsertBuilder(List<T> entities) {
+        super(entities == null || entities.isEmpty() ? null : entities.get(0));
+        if (entities == null || entities.isEmpty()) {
+            throw new IllegalArgumentException("批量插入的实体列表不能为空");
+        }
+        for (T item : entities) {
+            if (item == null || item.getClass() != entityClass) {
+                throw new IllegalArgumentException("批量插入的实体必须为同一类型且不能为null: " + entityClass.getName());
+            }
+        }
+        this.entities = entities;
+    }
+
+    /**
+     * 执行批量插入操作。
+     *
+     * @return 受影响的行数总和
+     */
+    @Override
+    public Integer execute() {
+        // 按非空列集合分组，同组实体共用同一个SQL模板
+        EntityMetadata<T> metadata = getMetadata();
+        Map<BitSet, List<Object[]>> groups = new LinkedHashMap<>();
+        for (T item : entities) {
+            Object[] values = metadata.getValues(item);
+            BitSet columns = SqlTemplates.nonNullColumns(values);
+            if (columns.isEmpty()) {
+                throw new IllegalStateException("没有可以插入的列值");
+            }
+            groups.computeIfAbsent(columns, k -> new ArrayList<>())
+                .add(values);
+        }
+
+        Integer total = SQLiteManager.inTransaction(() -> {
+            int sum = 0;
+            for (Map.Entry<BitSet, List<Object[]>> group : groups.entrySet()) {
+                sum += insertGroup(metadata, group.getKey(), group.getValue());
+            }
+            return sum;
+        });
+        for (T item : entities) {
+            invalidateCache(item);
+        }
+        return total;
+    }
+
+    /**
+     * 在数据库线程上异步执行批量插入操作。
+     *
+     * @return 受影响的行数总和
+     */
+    public CompletableFuture<Integer> executeAsync() {
+        return DataBaseExecutor.submit(QueryPlanAuditor.traced(this::execute));
+    }
+
+    /**
+     * 插入列集合相同的一组实体。
+     *
+     * @param metadata 实体元数据
+     * @param columns  列集合
+     * @param rows     每行的列值数组
+     * @return 受影响的行数
+     */
+    private int insertGroup(EntityMetadata<T> metadata, BitSet columns, List<Object[]> rows) {
+        int rowsPerStatement = Math.max(1, MAX_BOUND_PARAMETERS / columns.cardinality());
+        Object[][] rowValues = rows.toArray(new Object[0][]);
+
+        int total = 0;
+        for (int start = 0; start < rowValues.length; start += rowsPerStatement) {
+            int end = Math.min(start + rowsPerStatement, rowValues.length);
+            SqlTemplate template = SqlTemplates.insert(metadata, columns, end - start);
+            total += (Integer) SQLiteManager
+                .executeSafeSQL(template.getSql(), template.bindRows(rowValues, start, end));
+        }
+        return total;
+    }
+}
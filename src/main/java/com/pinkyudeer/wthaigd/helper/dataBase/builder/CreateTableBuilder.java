@@ -1,13 +1,12 @@
 package com.pinkyudeer.wthaigd.helper.dataBase.builder;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import com.pinkyudeer.wthaigd.helper.dataBase.annotation.Reference;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata.ColumnMetadata;
 import com.pinkyudeer.wthaigd.helper.dataBase.builder.SQLUtils.SQLColumnUtils;
 import com.pinkyudeer.wthaigd.helper.dataBase.builder.SQLUtils.SQLIndexUtils;
 import com.pinkyudeer.wthaigd.helper.dataBase.builder.SQLUtils.SQLTableUtils;
@@ -80,22 +79,19 @@ public class CreateTableBuilder<T> extends BaseDDLBuilder<T, CreateTableBuilder<
      */
     private List<String> buildTableSql(Class<?> entityClass, String tableName) {
         List<String> sqls = new ArrayList<>();
-        List<String> columnDefinitions = new ArrayList<>();
-        List<Field> referFields = new ArrayList<>();
-        Map<String, List<String>> indexMap = new HashMap<>();
+        EntityMetadata<?> metadata = EntityMetadata.of(entityClass);
 
         // 处理所有字段
-        SQLTableUtils.processFields(entityClass, columnDefinitions, referFields, indexMap);
+        List<String> columnDefinitions = SQLTableUtils.buildColumnDefinitions(metadata);
 
         // 收集外键约束并按引用表分组
         // 这里对外键进行分组优化，使相同表的外键引用可以合并为一个FOREIGN KEY语句
-        Map<String, List<Field>> referFieldsByTable = referFields.stream()
-            .collect(
-                Collectors
-                    .groupingBy(field -> SQLColumnUtils.getReferencedTableName(field.getAnnotation(Reference.class))));
+        Map<String, List<ColumnMetadata>> referFieldsByTable = metadata.getReferences()
+            .stream()
+            .collect(Collectors.groupingBy(column -> SQLColumnUtils.getReferencedTableName(column.getReference())));
 
         // 构建依赖关系映射
-        for (Map.Entry<String, List<Field>> entry : referFieldsByTable.entrySet()) {
+        for (Map.Entry<String, List<ColumnMetadata>> entry : referFieldsByTable.entrySet()) {
             String referencedTable = entry.getKey();
             tableRefMap.computeIfAbsent(referencedTable, k -> new ArrayList<>())
                 .add(tableName);
@@ -111,7 +107,7 @@ public class CreateTableBuilder<T> extends BaseDDLBuilder<T, CreateTableBuilder<
         sqls.add(SQLTableUtils.generateCreateTableSql(tableName, columnDefinitions, foreignKeys));
 
         // 添加索引
-        SQLIndexUtils.processAndAddIndexes(indexMap, tableName, sqls);
+        SQLIndexUtils.addIndexes(metadata.getIndexes(), tableName, sqls);
 
         return sqls;
     }
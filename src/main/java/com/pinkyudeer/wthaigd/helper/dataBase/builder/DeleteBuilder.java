@@ -2,8 +2,10 @@ package com.pinkyudeer.wthaigd.helper.dataBase.builder;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import com.pinkyudeer.wthaigd.helper.dataBase.DataBaseExecutor;
+import com.pinkyudeer.wthaigd.helper.dataBase.QueryPlanAuditor;
 import com.pinkyudeer.wthaigd.helper.dataBase.SQLiteManager;
 
 /**
@@ -50,25 +52,35 @@ public class DeleteBuilder<T> extends BaseBuilder<T, DeleteBuilder<T>> {
 
     @Override
     public Integer execute() {
-        String sql = "DELETE FROM " + getTableName();
+        // 按主键删除时只使用主键条件，直接使用缓存的SQL模板
+        if (usePrimaryKey) {
+            SqlTemplate template = SqlTemplates.deleteById(getMetadata());
+            Integer affected = (Integer) SQLiteManager
+                .executeSafeSQL(template.getSql(), buildPrimaryKeyCondition().getRight());
+            invalidateCache(entity);
+            return affected;
+        }
+
         List<Object> executeParams = new ArrayList<>();
 
         // 如果是比对模式，使用差异值作为条件
-        if (compareMode && oldEntity != null) {
-            // 获取差异字段
-            Map<String, Object> diffValues = getDifferentValues();
-            if (!diffValues.isEmpty()) {
-                for (Map.Entry<String, Object> entry : diffValues.entrySet()) {
-                    where(
-                        entry.getKey(),
-                        com.pinkyudeer.wthaigd.helper.dataBase.SQLHelper.Operator.EQ,
-                        entry.getValue());
-                }
-            }
-        }
+        applyCompareConditions();
+        collectWhereParams(executeParams, true, "删除");
+        String sql = SqlTemplates.statement(
+            shapeKey("DELETE"),
+            () -> addWhereClause("DELETE FROM " + getTableName(), new ArrayList<>(), true, "删除"));
 
-        sql = addWhereClause(sql, executeParams, true, "删除");
+        Integer affected = (Integer) SQLiteManager.executeSafeSQL(sql, executeParams.toArray());
+        invalidateCache();
+        return affected;
+    }
 
-        return (Integer) SQLiteManager.executeSafeSQL(sql, executeParams.toArray());
+    /**
+     * 在数据库线程上异步执行删除操作。
+     *
+     * @return 受影响的行数
+     */
+    public CompletableFuture<Integer> executeAsync() {
+        return DataBaseExecutor.submit(QueryPlanAuditor.traced(this::execute));
     }
 }
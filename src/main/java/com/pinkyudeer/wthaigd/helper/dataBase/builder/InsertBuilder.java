@@ -1,15 +1,15 @@
 package com.pinkyudeer.wthaigd.helper.dataBase.builder;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
 
+import com.pinkyudeer.wthaigd.helper.dataBase.DataBaseExecutor;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata;
+import com.pinkyudeer.wthaigd.helper.dataBase.QueryPlanAuditor;
 import com.pinkyudeer.wthaigd.helper.dataBase.SQLiteManager;
 
 /**
  * 插入操作构建器。
- * 用于构建和执行SQL INSERT语句。
+ * 用于构建和执行SQL INSERT语句，相同非空列集合的插入共用同一个 {@link SqlTemplate}。
  *
  * @param <T> 实体类型
  */
@@ -34,22 +34,20 @@ public class InsertBuilder<T> extends BaseBuilder<T, InsertBuilder<T>> {
      */
     @Override
     public Integer execute() {
-        Map<String, Object> values = getColumnValues();
-        if (values.isEmpty()) {
-            throw new IllegalStateException("没有可以插入的列值");
-        }
-
-        StringJoiner columns = new StringJoiner(", ", "(", ")");
-        StringJoiner placeholders = new StringJoiner(", ", "(", ")");
-        List<Object> params = new ArrayList<>();
-
-        for (Map.Entry<String, Object> entry : values.entrySet()) {
-            columns.add(entry.getKey());
-            placeholders.add("?");
-            params.add(entry.getValue());
-        }
+        EntityMetadata<T> metadata = getMetadata();
+        Object[] values = metadata.getValues(entity);
+        SqlTemplate template = SqlTemplates.insert(metadata, SqlTemplates.nonNullColumns(values), 1);
+        Integer affected = (Integer) SQLiteManager.executeSafeSQL(template.getSql(), template.bind(values));
+        invalidateCache(entity);
+        return affected;
+    }
 
-        String sql = String.format("INSERT INTO %s %s VALUES %s", getTableName(), columns, placeholders);
-        return (Integer) SQLiteManager.executeSafeSQL(sql, params.toArray());
+    /**
+     * 在数据库线程上异步执行插入操作。
+     *
+     * @return 受影响的行数
+     */
+    public CompletableFuture<Integer> executeAsync() {
+        return DataBaseExecutor.submit(QueryPlanAuditor.traced(this::execute));
     }
 }
@@ -6,13 +6,16 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
-import com.pinkyudeer.wthaigd.helper.UtilHelper;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata.ColumnMetadata;
 import com.pinkyudeer.wthaigd.helper.dataBase.annotation.Column;
 import com.pinkyudeer.wthaigd.helper.dataBase.annotation.FieldCheck;
 import com.pinkyudeer.wthaigd.helper.dataBase.annotation.Reference;
-import com.pinkyudeer.wthaigd.helper.dataBase.annotation.Table;
+import com.pinkyudeer.wthaigd.helper.dataBase.converter.TypeConverters;
+import com.pinkyudeer.wthaigd.helper.dataBase.converter.TypeConverters.UuidStorage;
 
 /**
  * SQL工具类集合。
@@ -26,6 +29,15 @@ public class SQLUtils {
      */
     public static class SQLColumnUtils {
 
+        /** 把36字符的 UUID 文本转换为16字节 BLOB，其他类型的值原样保留 */
+        private static final String UUID_TEXT_TO_BLOB = "CASE WHEN typeof(%s) = 'text' THEN unhex(replace(%s, '-', ''))"
+            + " ELSE %s END";
+
+        /** 把16字节 BLOB 转换为带连字符的小写 UUID 文本，其他类型的值原样保留 */
+        private static final String UUID_BLOB_TO_TEXT = "CASE WHEN typeof(%s) = 'blob' THEN lower("
+            + "substr(hex(%s), 1, 8) || '-' || substr(hex(%s), 9, 4) || '-' || substr(hex(%s), 13, 4)"
+            + " || '-' || substr(hex(%s), 17, 4) || '-' || substr(hex(%s), 21)) ELSE %s END";
+
         /**
          * 获取SQLite数据类型。
          * 根据Java字段类型转换为对应的SQLite数据类型。
@@ -37,7 +49,9 @@ public class SQLUtils {
             Class<?> type = field.getType();
             String typeName = type.getSimpleName();
 
-            if (typeName.equals("String") || typeName.equals("UUID") || type.isEnum()) {
+            if (type == UUID.class) {
+                return TypeConverters.getUuidStorage() == UuidStorage.BLOB ? "BLOB" : "TEXT";
+            } else if (typeName.equals("String") || type.isEnum()) {
                 return "TEXT";
             } else {
                 return switch (typeName) {
@@ -144,7 +158,9 @@ public class SQLUtils {
                         case UUID:
                             columnDef.append(" CHECK(LENGTH(")
                                 .append(columnName)
-                                .append(") = 36)");
+                                .append(") = ")
+                                .append(isBlobUuid(field) ? 16 : 36)
+                                .append(")");
                             break;
                         case ENUM:
                             if (fieldCheck.dataType()
@@ -183,6 +199,32 @@ public class SQLUtils {
             return columnDef.toString();
         }
 
+        /**
+         * 判断字段是否以16字节 BLOB 存储 UUID。
+         *
+         * @param field 字段
+         * @return 字段类型为 UUID 且存储格式为 BLOB 时返回true
+         */
+        public static boolean isBlobUuid(Field field) {
+            return field.getType() == UUID.class && TypeConverters.getUuidStorage() == UuidStorage.BLOB;
+        }
+
+        /**
+         * 获取重建表时复制列数据的表达式。
+         * UUID 列按当前存储格式转换旧值：文本转为16字节 BLOB，或 BLOB 转回带连字符的小写文本，其他列原样复制。
+         *
+         * @param column 列元数据
+         * @return 用于 INSERT ... SELECT 的列表达式
+         */
+        public static String getCopyExpression(ColumnMetadata column) {
+            String name = column.getName();
+            if (column.getJavaType() != UUID.class) return name;
+            if (TypeConverters.getUuidStorage() == UuidStorage.BLOB) {
+                return String.format(UUID_TEXT_TO_BLOB, name, name, name);
+            }
+            return String.format(UUID_BLOB_TO_TEXT, name, name, name, name, name, name, name);
+        }
+
         /**
          * 获取枚举类的所有值，用于构建CHECK约束。
          *
@@ -196,7 +238,7 @@ public class SQLUtils {
 
             Object[] constants = enumClass.getEnumConstants();
             return Arrays.stream(constants)
-                .map(constant -> "'" + constant.toString() + "'")
+                .map(constant -> "'" + ((Enum<?>) constant).name() + "'")
                 .collect(Collectors.joining(", "));
         }
 
@@ -213,13 +255,8 @@ public class SQLUtils {
             }
 
             // 从实体类派生表名
-            Table table = reference.entity()
-                .getAnnotation(Table.class);
-            if (table != null) {
-                return table.name();
-            } else {
-                throw new IllegalArgumentException("实体类必须使用@Table注解");
-            }
+            return EntityMetadata.of(reference.entity())
+                .getTableName();
         }
     }
 
@@ -250,26 +287,24 @@ public class SQLUtils {
             }
 
             // 生成并添加索引SQL
-            for (Map.Entry<String, List<String>> entry : indexMapReverse.entrySet()) {
-                String indexSql = String.format(
-                    "CREATE INDEX IF NOT EXISTS %s ON %s(%s);",
-                    entry.getKey(),
-                    tableName,
-                    String.join(", ", entry.getValue()));
-                sqls.add(indexSql);
-            }
+            addIndexes(indexMapReverse, tableName, sqls);
         }
 
         /**
-         * 收集字段的索引信息。
+         * 根据索引名到列名的映射生成索引SQL语句。
          *
-         * @param field    字段
-         * @param column   列注解
-         * @param indexMap 索引映射，用于存储收集结果
+         * @param indexes   索引映射（索引名到列名列表的映射）
+         * @param tableName 表名
+         * @param sqls      SQL语句列表，生成的索引SQL会添加到这个列表中
          */
-        public static void collectIndexInfo(Field field, Column column, Map<String, List<String>> indexMap) {
-            if (column.index().length > 0) {
-                indexMap.put(column.name(), Arrays.asList(column.index()));
+        public static void addIndexes(Map<String, List<String>> indexes, String tableName, List<String> sqls) {
+            for (Map.Entry<String, List<String>> entry : indexes.entrySet()) {
+                sqls.add(
+                    String.format(
+                        "CREATE INDEX IF NOT EXISTS %s ON %s(%s);",
+                        entry.getKey(),
+                        tableName,
+                        String.join(", ", entry.getValue())));
             }
         }
     }
@@ -281,27 +316,17 @@ public class SQLUtils {
     public static class SQLTableUtils {
 
         /**
-         * 处理实体类的所有字段。
+         * 根据实体元数据生成所有列定义。
          *
-         * @param entityClass       实体类
-         * @param columnDefinitions 列定义列表
-         * @param referFields       引用字段列表
-         * @param indexMap          索引映射
+         * @param metadata 实体元数据
+         * @return 列定义列表
          */
-        public static void processFields(Class<?> entityClass, List<String> columnDefinitions, List<Field> referFields,
-            Map<String, List<String>> indexMap) {
-            for (Field field : UtilHelper.getAllFieldsReverse(entityClass)) {
-                Column column = field.getAnnotation(Column.class);
-                if (column == null) continue;
-
-                columnDefinitions.add(SQLColumnUtils.buildColumnDefinition(field, column));
-
-                if (field.isAnnotationPresent(Reference.class)) {
-                    referFields.add(field);
-                }
-
-                SQLIndexUtils.collectIndexInfo(field, column, indexMap);
+        public static List<String> buildColumnDefinitions(EntityMetadata<?> metadata) {
+            List<String> columnDefinitions = new ArrayList<>();
+            for (ColumnMetadata column : metadata.getColumns()) {
+                columnDefinitions.add(SQLColumnUtils.buildColumnDefinition(column.getField(), column.getColumn()));
             }
+            return columnDefinitions;
         }
 
         /**
@@ -328,35 +353,28 @@ public class SQLUtils {
          * @return 表名
          */
         public static String getTableName(Class<?> entityClass) {
-            Table table = entityClass.getAnnotation(Table.class);
-            if (table == null) {
-                throw new IllegalArgumentException("类必须使用@Table注解");
-            }
-            return table.name();
+            return EntityMetadata.of(entityClass)
+                .getTableName();
         }
 
         /**
          * 生成外键SQL。
          *
-         * @param fields          引用字段列表
+         * @param fields          引用列列表
          * @param referencedTable 引用表名
          * @return 外键SQL
          */
-        public static String generateForeignKeySql(List<Field> fields, String referencedTable) {
+        public static String generateForeignKeySql(List<ColumnMetadata> fields, String referencedTable) {
             // 构建字段名列表
             String fieldNames = fields.stream()
-                .map(field -> {
-                    Column column = field.getAnnotation(Column.class);
-                    return column != null ? column.name() : field.getName();
-                })
+                .map(ColumnMetadata::getName)
                 .collect(Collectors.joining(", "));
 
             // 构建引用字段名列表
             String referencedFields = fields.stream()
-                .map(field -> {
-                    Reference reference = field.getAnnotation(Reference.class);
-                    return reference != null ? reference.fieldName() : "id";
-                })
+                .map(
+                    column -> column.getReference()
+                        .fieldName())
                 .collect(Collectors.joining(", "));
 
             // 生成外键约束SQL，使用CASCADE作为默认操作
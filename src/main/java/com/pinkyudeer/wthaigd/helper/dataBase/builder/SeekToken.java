@@ -0,0 +1,122 @@
+package com.pinkyudeer.wthaigd.helper.dataBase.builder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata.ColumnMetadata;
+
+/**
+ * 键集分页的续页令牌编解码。
+ * 令牌为 URL 安全的 Base64 文本，内容是排序列名和对应的键值，键值按列的 Java 类型以文本形式保存，
+ * 解码时校验列名与当前查询的排序列一致，避免把其他查询的令牌用错位置。
+ */
+final class SeekToken {
+
+    private static final char SEPARATOR = '\u0000';
+
+    private SeekToken() {}
+
+    /**
+     * 编码排序键。
+     *
+     * @param columns 排序列
+     * @param values  排序键值
+     * @return 续页令牌
+     */
+    static String encode(List<ColumnMetadata> columns, Object[] values) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            if (values[i] == null) {
+                throw new IllegalStateException(
+                    "键集分页的排序列不能为null: " + columns.get(i)
+                        .getName());
+            }
+            if (i > 0) text.append(SEPARATOR);
+            text.append(
+                columns.get(i)
+                    .getName())
+                .append(SEPARATOR)
+                .append(format(values[i]));
+        }
+        return Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(
+                text.toString()
+                    .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码续页令牌。
+     *
+     * @param columns 当前查询的排序列
+     * @param token   续页令牌
+     * @return 排序键值
+     */
+    static Object[] decode(List<ColumnMetadata> columns, String token) {
+        String[] parts;
+        try {
+            parts = new String(
+                Base64.getUrlDecoder()
+                    .decode(token),
+                StandardCharsets.UTF_8).split(String.valueOf(SEPARATOR), -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的续页令牌: " + token, e);
+        }
+        if (parts.length != columns.size() * 2) {
+            throw new IllegalArgumentException("续页令牌与排序列不匹配: " + token);
+        }
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            ColumnMetadata column = columns.get(i);
+            if (!column.getName()
+                .equals(parts[i * 2])) {
+                throw new IllegalArgumentException("续页令牌与排序列不匹配: " + token);
+            }
+            try {
+                values[i] = parse(column.getJavaType(), parts[i * 2 + 1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("无效的续页令牌: " + token, e);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 将键值格式化为文本。
+     *
+     * @param value 键值
+     * @return 文本
+     */
+    private static String format(Object value) {
+        if (value instanceof Date date) return String.valueOf(date.getTime());
+        if (value instanceof Enum<?>enumValue) return enumValue.name();
+        return value.toString();
+    }
+
+    /**
+     * 将文本解析为列的 Java 类型。
+     *
+     * @param type Java 类型
+     * @param text 文本
+     * @return 键值
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object parse(Class<?> type, String text) {
+        if (type == String.class) return text;
+        if (type == Integer.class || type == int.class) return Integer.valueOf(text);
+        if (type == Long.class || type == long.class) return Long.valueOf(text);
+        if (type == Double.class || type == double.class) return Double.valueOf(text);
+        if (type == Boolean.class || type == boolean.class) return Boolean.valueOf(text);
+        if (type == UUID.class) return UUID.fromString(text);
+        if (type == LocalDateTime.class) return LocalDateTime.parse(text);
+        if (type == Duration.class) return Duration.parse(text);
+        if (Date.class.isAssignableFrom(type)) return new Date(Long.parseLong(text));
+        if (type.isEnum()) return Enum.valueOf((Class) type, text);
+        throw new IllegalArgumentException("不支持作为分页键的列类型: " + type.getName());
+    }
+}
@@ -2,13 +2,30 @@ package com.pinkyudeer.wthaigd.helper.dataBase.builder;
 
 import java.lang.reflect.Field;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import com.pinkyudeer.wthaigd.helper.dataBase.DataBaseExecutor;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityCursor;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityHandler;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata.ColumnMetadata;
+import com.pinkyudeer.wthaigd.helper.dataBase.Page;
+import com.pinkyudeer.wthaigd.helper.dataBase.ProjectionMapper;
+import com.pinkyudeer.wthaigd.helper.dataBase.QueryPlanAuditor;
 import com.pinkyudeer.wthaigd.helper.dataBase.SQLiteManager;
-import com.pinkyudeer.wthaigd.helper.dataBase.annotation.Table;
+import com.pinkyudeer.wthaigd.helper.dataBase.cache.QueryCache;
+import com.pinkyudeer.wthaigd.helper.dataBase.converter.TypeConverter;
 
 /**
  * 查询操作构建器。
@@ -61,6 +78,10 @@ public class SelectBuilder<T> extends BaseBuilder<T, SelectBuilder<T>> {
     private boolean isAscending = true;
     private int limit = 0;
     private int offset = 0;
+    private List<ColumnMetadata> seekColumns;
+    private Object[] seekAfter;
+    private final List<String> joinedTables = new ArrayList<>();
+    private boolean cached = false;
 
     /**
      * 设置要查询的列。
@@ -84,15 +105,30 @@ public class SelectBuilder<T> extends BaseBuilder<T, SelectBuilder<T>> {
      * @return 当前构建器实例
      */
     public SelectBuilder<T> join(Class<?> joinTable, Field fromField, Field toField) {
-        Table joinTableAnno = joinTable.getAnnotation(Table.class);
-        if (joinTableAnno == null) {
+        EntityMetadata<?> joinMetadata = EntityMetadata.of(joinTable);
+        if (!joinMetadata.isTable()) {
             throw new IllegalArgumentException("连接表必须使用@Table注解");
         }
+        String joinTableName = joinMetadata.getTableName();
 
         String fromColumnName = getFullColumnName(fromField);
-        String toColumnName = joinTableAnno.name() + "." + getColumnName(toField);
+        String toColumnName = joinTableName + "." + getColumnName(toField);
 
-        this.joins += String.format(" JOIN %s ON %s = %s", joinTableAnno.name(), fromColumnName, toColumnName);
+        this.joins += String.format(" JOIN %s ON %s = %s", joinTableName, fromColumnName, toColumnName);
+        this.joinedTables.add(joinTableName);
+        return this;
+    }
+
+    /**
+     * 启用查询结果缓存。
+     * 相同的查询（SQL和参数都相同）再次执行时直接返回内存中的结果，查询的表和连接的表被任意构建器写入后自动失效。
+     * 适用于重复执行且结果不大的查询，如界面打开时的任务列表和统计；通过 having 子句中的子查询读取的其他表不会被跟踪。
+     * 每次返回的实体、数组和集合都是新构造的，修改它们不会影响缓存。
+     *
+     * @return 当前构建器实例
+     */
+    public SelectBuilder<T> cached() {
+        this.cached = true;
         return this;
     }
 
@@ -176,47 +212,166 @@ public class SelectBuilder<T> extends BaseBuilder<T, SelectBuilder<T>> {
         return this;
     }
 
+    /**
+     * 设置键集分页的排序键，同时按这些列排序。
+     * 排序键应当唯一确定一行（通常以主键结尾，例如 create_time, id），并且最好有对应的索引，
+     * 这样每一页都通过索引直接定位到上一页的末尾，不需要像 OFFSET 那样逐行跳过前面的数据。
+     *
+     * @param ascending 是否升序
+     * @param columns   排序列名，列值不能为null
+     * @return 当前构建器实例
+     */
+    public SelectBuilder<T> seekBy(boolean ascending, String... columns) {
+        if (columns == null || columns.length == 0) {
+            throw new IllegalArgumentException("分页排序列不能为空");
+        }
+        this.seekColumns = resolveColumns(columns);
+        this.orderByFields = seekColumns.stream()
+            .map(this::getQualifiedColumnName)
+            .toArray(String[]::new);
+        this.isAscending = ascending;
+        return this;
+    }
+
+    /**
+     * 从续页令牌指定的位置之后继续查询。令牌为null或空时从第一页开始。
+     *
+     * @param token 上一页返回的续页令牌
+     * @return 当前构建器实例
+     */
+    public SelectBuilder<T> after(String token) {
+        if (seekColumns == null) {
+            throw new IllegalStateException("使用续页令牌前必须先调用seekBy()设置排序键");
+        }
+        this.seekAfter = token == null || token.isEmpty() ? null : SeekToken.decode(seekColumns, token);
+        return this;
+    }
+
+    /**
+     * 执行键集分页查询，返回一页结果和下一页的续页令牌。
+     *
+     * @param size 每页行数
+     * @return 一页结果
+     */
+    public Page<T> page(int size) {
+        if (seekColumns == null) {
+            throw new IllegalStateException("键集分页必须先调用seekBy()设置排序键");
+        }
+        if (offset > 0) {
+            throw new IllegalStateException("键集分页不能与OFFSET同时使用");
+        }
+        // 多读取一行用于判断是否还有下一页
+        limit(size + 1);
+        List<T> rows = list();
+        if (rows.size() <= size) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, size));
+        T last = items.get(size - 1);
+        Object[] key = new Object[seekColumns.size()];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = seekColumns.get(i)
+                .get(last);
+        }
+        return new Page<>(items, SeekToken.encode(seekColumns, key));
+    }
+
     /**
      * 执行查询操作。
+     * 只能在数据库线程上调用，其他线程应使用 {@link #list()}、{@link #single()} 或 {@link #executeAsync}。
      *
      * @return 查询结果集
+     * @throws IllegalStateException 当在数据库线程以外的线程上调用时抛出
      */
     @Override
     public ResultSet execute() {
+        List<Object> executeParams = new ArrayList<>();
+        String sql = buildQuery(executeParams);
+        return (ResultSet) SQLiteManager.executeSafeSQL(sql, executeParams.toArray());
+    }
+
+    /**
+     * 构建查询语句。
+     *
+     * @param executeParams 用于收集SQL参数的列表
+     * @return 查询SQL
+     */
+    private String buildQuery(List<Object> executeParams) {
+        String selectList = selectColumns == null || selectColumns.length == 0 ? "*" : String.join(", ", selectColumns);
+        return buildQuery(selectList, false, executeParams);
+    }
+
+    /**
+     * 以指定的查询列构建查询语句。
+     * SQL文本按查询形态从 {@link SqlTemplates#statement} 获取，形态相同的查询只拼接一次，每次执行只收集参数。
+     *
+     * @param selectList    SELECT 后的列表达式
+     * @param aggregate     是否为聚合查询，聚合查询不附加 ORDER BY、LIMIT 和 OFFSET
+     * @param executeParams 用于收集SQL参数的列表
+     * @return 查询SQL
+     */
+    private String buildQuery(String selectList, boolean aggregate, List<Object> executeParams) {
+        // 如果是比对模式，使用差异值作为条件
+        applyCompareConditions();
+
+        // 参数顺序与SQL中占位符的顺序一致：WHERE 条件、键集分页条件、HAVING 子句
+        collectWhereParams(executeParams, false, "查询");
+        if (seekAfter != null) executeParams.addAll(Arrays.asList(seekAfter));
+        if (!havingClause.isEmpty()) executeParams.addAll(havingParams);
+
+        List<Object> shape = shapeKey(
+            "SELECT",
+            selectList,
+            aggregate,
+            joins,
+            groupByFields == null ? null : Arrays.asList(groupByFields),
+            havingClause,
+            orderByFields == null ? null : Arrays.asList(orderByFields),
+            isAscending,
+            limit,
+            offset,
+            seekAfter != null);
+        return SqlTemplates.statement(shape, () -> buildQuerySql(selectList, aggregate));
+    }
+
+    /**
+     * 拼接查询语句。
+     *
+     * @param selectList SELECT 后的列表达式
+     * @param aggregate  是否为聚合查询
+     * @return 查询SQL
+     */
+    private String buildQuerySql(String selectList, boolean aggregate) {
         StringBuilder query = new StringBuilder("SELECT ");
-        query.append(selectColumns == null || selectColumns.length == 0 ? "*" : String.join(", ", selectColumns));
+        query.append(selectList);
         query.append(" FROM ")
             .append(getTableName());
 
         if (!joins.isEmpty()) query.append(joins);
 
-        // 如果是比对模式，使用差异值作为条件
-        if (compareMode && oldEntity != null) {
-            // 获取差异字段
-            Map<String, Object> diffValues = getDifferentValues();
-            if (!diffValues.isEmpty()) {
-                for (Map.Entry<String, Object> entry : diffValues.entrySet()) {
-                    String columnName = entry.getKey();
-                    Object value = entry.getValue();
-                    currentGroup.addCondition(columnName + " = ?", value);
-                }
-            }
+        String base = query.toString();
+        String filtered = addWhereClause(base, new ArrayList<>(), false, "查询");
+        if (seekAfter != null) {
+            // 键集分页条件与已有条件用AND连接，已有条件整体加括号以保持OR的优先级
+            String seekCondition = buildSeekCondition();
+            filtered = filtered.length() == base.length() ? base + " WHERE " + seekCondition
+                : base + " WHERE (" + filtered.substring(base.length() + " WHERE ".length()) + ") AND " + seekCondition;
         }
-
-        List<Object> executeParams = new ArrayList<>();
-        query = new StringBuilder(addWhereClause(query.toString(), executeParams, false, "查询"));
+        query = new StringBuilder(filtered);
 
         if (groupByFields != null && groupByFields.length > 0) query.append(" GROUP BY ")
             .append(String.join(", ", groupByFields));
         if (!havingClause.isEmpty()) {
             query.append(" HAVING ")
                 .append(havingClause);
-            executeParams.addAll(havingParams);
         }
+        if (aggregate) return query.toString();
         if (orderByFields != null && orderByFields.length > 0) {
+            // 排序方向作用于每一个排序列
+            String direction = isAscending ? " ASC" : " DESC";
             query.append(" ORDER BY ")
-                .append(String.join(", ", orderByFields))
-                .append(isAscending ? " ASC" : " DESC");
+                .append(String.join(direction + ", ", orderByFields))
+                .append(direction);
         }
         if (limit > 0) {
             query.append(" LIMIT ")
@@ -225,6 +380,485 @@ public class SelectBuilder<T> extends BaseBuilder<T, SelectBuilder<T>> {
                 .append(offset);
         }
 
-        return (ResultSet) SQLiteManager.executeSafeSQL(query.toString(), executeParams.toArray());
+        return query.toString();
+    }
+
+    /**
+     * 构建键集分页条件，使用行值比较：(a, b) > (?, ?)。
+     * 行值比较可以直接利用 (a, b) 上的索引定位起点，参数由调用方收集。
+     *
+     * @return 分页条件
+     */
+    private String buildSeekCondition() {
+        String placeholders = String.join(", ", Collections.nCopies(seekColumns.size(), "?"));
+        return "(" + String.join(", ", orderByFields) + ") " + (isAscending ? ">" : "<") + " (" + placeholders + ")";
+    }
+
+    /**
+     * 统计满足条件的行数。
+     *
+     * @return 行数
+     */
+    public long count() {
+        return aggregate("COUNT(*)", rs -> rs.next() ? rs.getLong(1) : 0L);
+    }
+
+    /**
+     * 是否存在满足条件的行。找到第一行后即停止扫描。
+     *
+     * @return 存在时返回true
+     */
+    public boolean exists() {
+        List<Object> executeParams = new ArrayList<>();
+        String sql = "SELECT EXISTS(" + buildQuery("1", true, executeParams) + ")";
+        return query(sql, executeParams, rs -> rs.next() && rs.getInt(1) == 1);
+    }
+
+    /**
+     * 对数值列求和，没有满足条件的行时返回0。
+     *
+     * @param column 列名
+     * @return 求和结果
+     */
+    public long sum(String column) {
+        String columnName = getQualifiedColumnName(resolveColumn(column));
+        return aggregate("COALESCE(SUM(" + columnName + "), 0)", rs -> rs.next() ? rs.getLong(1) : 0L);
+    }
+
+    /**
+     * 对数值列求和。
+     *
+     * @param field 字段
+     * @return 求和结果
+     */
+    public long sum(Field field) {
+        return sum(getColumnName(field));
+    }
+
+    /**
+     * 获取列的最大值，结果按列的类型转换器读取。
+     *
+     * @param column 列名
+     * @param <V>    列的 Java 类型
+     * @return 最大值，没有满足条件的行时返回null
+     */
+    public <V> V max(String column) {
+        return extremum("MAX", column);
+    }
+
+    /**
+     * 获取字段的最大值。
+     *
+     * @param field 字段
+     * @param <V>   字段类型
+     * @return 最大值，没有满足条件的行时返回null
+     */
+    public <V> V max(Field field) {
+        return max(getColumnName(field));
+    }
+
+    /**
+     * 获取列的最小值，结果按列的类型转换器读取。
+     *
+     * @param column 列名
+     * @param <V>    列的 Java 类型
+     * @return 最小值，没有满足条件的行时返回null
+     */
+    public <V> V min(String column) {
+        return extremum("MIN", column);
+    }
+
+    /**
+     * 获取字段的最小值。
+     *
+     * @param field 字段
+     * @param <V>   字段类型
+     * @return 最小值，没有满足条件的行时返回null
+     */
+    public <V> V min(Field field) {
+        return min(getColumnName(field));
+    }
+
+    /**
+     * 按列的取值分组计数，例如统计各状态的通知数量。键按列的类型转换器读取，按计数从多到少排列。
+     * 分组由本方法生成，不能与 groupBy() 或 having() 同时使用。
+     *
+     * @param column 列名
+     * @param <V>    列的 Java 类型
+     * @return 列值到行数的映射
+     */
+    @SuppressWarnings("unchecked")
+    public <V> Map<V, Long> groupCount(String column) {
+        if ((groupByFields != null && groupByFields.length > 0) || !havingClause.isEmpty()) {
+            throw new IllegalStateException("groupCount()会按指定列分组，不能与groupBy()或having()同时使用");
+        }
+        ColumnMetadata target = resolveColumn(column);
+        String columnName = getQualifiedColumnName(target);
+        List<Object> executeParams = new ArrayList<>();
+        String sql = buildQuery(columnName + ", COUNT(*)", true, executeParams) + " GROUP BY "
+            + columnName
+            + " ORDER BY 2 DESC";
+        Map<V, Long> counts = query(sql, executeParams, rs -> {
+            Map<V, Long> result = new LinkedHashMap<>();
+            while (rs.next()) {
+                result.put(
+                    (V) target.getConverter()
+                        .read(rs, 1),
+                    rs.getLong(2));
+            }
+            return result;
+        });
+        // 启用结果缓存时返回的是缓存中的映射，复制一份
+        return cached ? new LinkedHashMap<>(counts) : counts;
+    }
+
+    /**
+     * 按字段的取值分组计数。
+     *
+     * @param field 字段
+     * @param <V>   字段类型
+     * @return 字段值到行数的映射
+     */
+    public <V> Map<V, Long> groupCount(Field field) {
+        return groupCount(getColumnName(field));
+    }
+
+    /**
+     * 只查询指定的列，并将每行映射为调用方提供的视图类型，不构造完整的实体对象。
+     * 视图可以是接口（按 getXxx/isXxx/xxx 方法对应列）或普通类（按字段名对应列，不调用构造函数），
+     * 成员名可以是实体字段名或列名。沿用当前的连接、条件、排序和分页设置。
+     *
+     * @param viewType 视图类型
+     * @param columns  查询的列名
+     * @param <V>      视图类型
+     * @return 视图对象列表
+     */
+    public <V> List<V> project(Class<V> viewType, String... columns) {
+        List<ColumnMetadata> targets = resolveColumns(columns);
+        ProjectionMapper<V> mapper = ProjectionMapper.of(viewType, targets);
+        List<Object> executeParams = new ArrayList<>();
+        String sql = buildQuery(getSelectList(targets), false, executeParams);
+        List<V> views = new ArrayList<>();
+        try {
+            for (Object[] row : queryRows(targets, sql, executeParams)) {
+                views.add(mapper.map(row));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("读取查询结果失败: " + sql, e);
+        }
+        return views;
+    }
+
+    /**
+     * 只查询指定的列，每行以数组形式返回，数组元素按列的类型转换器读取。
+     *
+     * @param columns 查询的列名
+     * @return 每行的列值数组
+     */
+    public List<Object[]> rows(String... columns) {
+        List<ColumnMetadata> targets = resolveColumns(columns);
+        List<Object> executeParams = new ArrayList<>();
+        String sql = buildQuery(getSelectList(targets), false, executeParams);
+        List<Object[]> rows = queryRows(targets, sql, executeParams);
+        if (!cached) return rows;
+        // 启用结果缓存时返回的是缓存中的数组，复制一份
+        List<Object[]> copies = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            copies.add(row.clone());
+        }
+        return copies;
+    }
+
+    /**
+     * 只查询单个列，返回该列的值列表，例如查询一组ID。
+     *
+     * @param column 列名
+     * @param <V>    列的 Java 类型
+     * @return 列值列表
+     */
+    @SuppressWarnings("unchecked")
+    public <V> List<V> pluck(String column) {
+        ColumnMetadata target = resolveColumn(column);
+        List<Object> executeParams = new ArrayList<>();
+        String sql = buildQuery(getQualifiedColumnName(target), false, executeParams);
+        List<Object[]> rows = queryRows(Collections.singletonList(target), sql, executeParams);
+        List<V> values = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            values.add((V) row[0]);
+        }
+        return values;
+    }
+
+    /**
+     * 执行 MAX/MIN 聚合查询。
+     *
+     * @param function 聚合函数
+     * @param column   列名
+     * @param <V>      列的 Java 类型
+     * @return 聚合结果
+     */
+    @SuppressWarnings("unchecked")
+    private <V> V extremum(String function, String column) {
+        ColumnMetadata target = resolveColumn(column);
+        String expression = function + "(" + getQualifiedColumnName(target) + ")";
+        return aggregate(
+            expression,
+            rs -> rs.next() ? (V) target.getConverter()
+                .read(rs, 1) : null);
+    }
+
+    /**
+     * 以指定的聚合表达式执行查询，沿用当前的连接和条件。
+     *
+     * @param expression 聚合表达式
+     * @param reader     结果读取函数
+     * @param <R>        结果类型
+     * @return 聚合结果
+     */
+    private <R> R aggregate(String expression, ResultReader<R> reader) {
+        List<Object> executeParams = new ArrayList<>();
+        String sql = buildQuery(expression, true, executeParams);
+        return query(sql, executeParams, reader);
+    }
+
+    /**
+     * 在数据库线程上执行查询并读取结果集，读取完成后关闭结果集。
+     *
+     * @param sql           查询SQL
+     * @param executeParams SQL参数
+     * @param reader        结果读取函数
+     * @param <R>           结果类型
+     * @return 读取结果
+     */
+    private <R> R query(String sql, List<Object> executeParams, ResultReader<R> reader) {
+        return cachedQuery("value", sql, executeParams, () -> DataBaseExecutor.call(QueryPlanAuditor.traced(() -> {
+            try (ResultSet rs = (ResultSet) SQLiteManager.executeSafeSQL(sql, executeParams.toArray())) {
+                return reader.read(rs);
+            } catch (SQLException e) {
+                throw new RuntimeException("读取查询结果失败: " + sql, e);
+            }
+        })));
+    }
+
+    /**
+     * 启用了结果缓存时通过缓存读取，否则直接执行查询。
+     *
+     * @param kind          读取方式，同一SQL以不同方式读取时用于区分缓存条目
+     * @param sql           查询SQL
+     * @param executeParams SQL参数
+     * @param loader        执行查询的函数，返回值必须不可变或不再被修改
+     * @param <R>           结果类型
+     * @return 查询结果
+     */
+    private <R> R cachedQuery(String kind, String sql, List<Object> executeParams, Supplier<R> loader) {
+        if (!cached) return loader.get();
+        String[] tables = new String[joinedTables.size() + 1];
+        tables[0] = getTableName();
+        for (int i = 0; i < joinedTables.size(); i++) {
+            tables[i + 1] = joinedTables.get(i);
+        }
+        return QueryCache.get(kind, sql, executeParams.toArray(), tables, loader);
+    }
+
+    /**
+     * 执行查询并按列的类型转换器读取所有行。
+     *
+     * @param columns       查询列
+     * @param sql           查询SQL
+     * @param executeParams SQL参数
+     * @return 每行的列值数组，启用结果缓存时为缓存中的共享数组
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object[]> queryRows(List<ColumnMetadata> columns, String sql, List<Object> executeParams) {
+        TypeConverter<Object>[] converters = new TypeConverter[columns.size()];
+        for (int i = 0; i < converters.length; i++) {
+            converters[i] = columns.get(i)
+                .getConverter();
+        }
+        return query(sql, executeParams, rs -> {
+            List<Object[]> rows = new ArrayList<>();
+            while (rs.next()) {
+                rows.add(ProjectionMapper.readRow(rs, converters));
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * 以实体列值的形式执行查询，用于启用结果缓存时的实体查询。
+     *
+     * @param single 是否只读取第一行
+     * @return 实体列表
+     */
+    private List<T> cachedEntities(boolean single) {
+        EntityMetadata<T> metadata = getMetadata();
+        List<Object> executeParams = new ArrayList<>();
+        String sql = buildQuery(executeParams);
+        String kind = single ? "single" : "list";
+        Supplier<List<Object[]>> loader = QueryPlanAuditor.traced(() -> {
+            ResultSet rs = (ResultSet) SQLiteManager.executeSafeSQL(sql, executeParams.toArray());
+            List<T> entities = single ? Collections.singletonList(EntityHandler.handleSingle(rs, entityClass))
+                : EntityHandler.handleList(rs, entityClass);
+            List<Object[]> values = new ArrayList<>(entities.size());
+            for (T item : entities) {
+                if (item != null) values.add(metadata.getValues(item));
+            }
+            return values;
+        });
+        List<Object[]> rows = cachedQuery(kind, sql, executeParams, () -> DataBaseExecutor.call(loader));
+        List<T> result = new ArrayList<>(rows.size());
+        for (Object[] values : rows) {
+            result.add(metadata.fromValues(values));
+        }
+        return result;
+    }
+
+    /**
+     * 查找列元数据。
+     *
+     * @param column 列名
+     * @return 列元数据
+     */
+    private ColumnMetadata resolveColumn(String column) {
+        ColumnMetadata target = getMetadata().getColumn(column);
+        if (target == null) {
+            throw new IllegalArgumentException("实体 " + entityClass.getName() + " 中不存在列: " + column);
+        }
+        return target;
+    }
+
+    /**
+     * 批量查找列元数据。
+     *
+     * @param columns 列名
+     * @return 列元数据列表
+     */
+    private List<ColumnMetadata> resolveColumns(String... columns) {
+        if (columns == null || columns.length == 0) {
+            throw new IllegalArgumentException("查询列不能为空");
+        }
+        List<ColumnMetadata> targets = new ArrayList<>(columns.length);
+        for (String column : columns) {
+            targets.add(resolveColumn(column));
+        }
+        return targets;
+    }
+
+    /**
+     * 生成带表名的查询列列表。
+     *
+     * @param columns 列元数据
+     * @return 逗号分隔的查询列
+     */
+    private String getSelectList(List<ColumnMetadata> columns) {
+        return columns.stream()
+            .map(this::getQualifiedColumnName)
+            .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * 获取带表名的列名，避免连接查询时列名歧义。
+     *
+     * @param column 列元数据
+     * @return 表名.列名
+     */
+    private String getQualifiedColumnName(ColumnMetadata column) {
+        return getTableName() + "." + column.getName();
+    }
+
+    /**
+     * 结果集读取函数
+     */
+    @FunctionalInterface
+    private interface ResultReader<R> {
+
+        R read(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * 在数据库线程上异步执行查询，并在数据库线程上处理结果集。
+     * 结果集只在回调内有效，回调返回后会被关闭或复用。
+     *
+     * @param handler 结果集处理函数
+     * @param <R>     处理结果类型
+     * @return 处理结果
+     */
+    public <R> CompletableFuture<R> executeAsync(Function<ResultSet, R> handler) {
+        return DataBaseExecutor.submit(QueryPlanAuditor.traced(() -> handler.apply(execute())));
+    }
+
+    /**
+     * 执行查询并将所有行映射为实体列表，映射在数据库线程上完成。
+     *
+     * @return 实体对象列表
+     */
+    public List<T> list() {
+        if (cached) return cachedEntities(false);
+        return DataBaseExecutor.call(QueryPlanAuditor.traced(() -> EntityHandler.handleList(execute(), entityClass)));
+    }
+
+    /**
+     * 执行查询并将第一行映射为实体对象，映射在数据库线程上完成。
+     *
+     * @return 实体对象，没有数据时返回null
+     */
+    public T single() {
+        if (cached) {
+            List<T> rows = cachedEntities(true);
+            return rows.isEmpty() ? null : rows.get(0);
+        }
+        return DataBaseExecutor.call(QueryPlanAuditor.traced(() -> EntityHandler.handleSingle(execute(), entityClass)));
+    }
+
+    /**
+     * 异步执行查询并将所有行映射为实体列表。
+     *
+     * @return 实体对象列表
+     */
+    public CompletableFuture<List<T>> listAsync() {
+        if (cached) return DataBaseExecutor.submit(QueryPlanAuditor.traced(this::list));
+        return executeAsync(rs -> EntityHandler.handleList(rs, entityClass));
+    }
+
+    /**
+     * 异步执行查询并将第一行映射为实体对象。
+     *
+     * @return 实体对象，没有数据时为null
+     */
+    public CompletableFuture<T> singleAsync() {
+        if (cached) return DataBaseExecutor.submit(QueryPlanAuditor.traced(this::single));
+        return executeAsync(rs -> EntityHandler.handleSingle(rs, entityClass));
+    }
+
+    /**
+     * 执行查询并返回逐行映射的游标。
+     * 游标使用独立的语句，每次只在内存中保留一个批次的实体，提前结束遍历时需要关闭游标。
+     *
+     * @return 实体游标
+     */
+    public EntityCursor<T> iterator() {
+        return iterator(EntityCursor.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * 执行查询并返回逐行映射的游标。
+     *
+     * @param batchSize 每批从数据库线程读取的行数
+     * @return 实体游标
+     */
+    public EntityCursor<T> iterator(int batchSize) {
+        List<Object> executeParams = new ArrayList<>();
+        String sql = buildQuery(executeParams);
+        return EntityCursor.open(sql, executeParams.toArray(), entityClass, batchSize);
+    }
+
+    /**
+     * 执行查询并返回惰性映射的实体流。
+     * 流读取完毕或关闭时释放语句，提前结束时应在 try-with-resources 中使用以确保关闭。
+     *
+     * @return 实体流
+     */
+    public Stream<T> stream() {
+        return iterator().stream();
     }
 }
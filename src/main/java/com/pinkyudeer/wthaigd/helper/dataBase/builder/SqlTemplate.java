@@ -0,0 +1,63 @@
+package com.pinkyudeer.wthaigd.helper.dataBase.builder;
+
+import lombok.Getter;
+
+/**
+ * 已编译的SQL模板。
+ * 保存一种构建器形态生成的SQL文本，以及参数绑定计划（每个占位符对应的列序号），
+ * 执行时直接按列序号从列值数组取参数，不再拼接SQL或构建列名映射。
+ * 模板由 {@link SqlTemplates} 创建和缓存，实例不可变，可以在线程间共享。
+ */
+public final class SqlTemplate {
+
+    @Getter
+    private final String sql;
+    private final int[] columnIndexes;
+    @Getter
+    private final int rows;
+
+    SqlTemplate(String sql, int[] columnIndexes, int rows) {
+        this.sql = sql;
+        this.columnIndexes = columnIndexes;
+        this.rows = rows;
+    }
+
+    /**
+     * 按绑定计划生成单行参数，并在末尾追加额外参数（如主键条件的值）。
+     *
+     * @param values 列值数组，下标与实体元数据的列顺序一致
+     * @param extra  追加在列参数之后的参数
+     * @return 参数数组
+     */
+    public Object[] bind(Object[] values, Object... extra) {
+        Object[] params = new Object[columnIndexes.length + extra.length];
+        for (int i = 0; i < columnIndexes.length; i++) {
+            params[i] = values[columnIndexes[i]];
+        }
+        System.arraycopy(extra, 0, params, columnIndexes.length, extra.length);
+        return params;
+    }
+
+    /**
+     * 按绑定计划生成多行参数，行数必须与模板的行数一致。
+     *
+     * @param rowValues 每行的列值数组
+     * @param from      起始行（包含）
+     * @param to        结束行（不包含）
+     * @return 参数数组
+     */
+    public Object[] bindRows(Object[][] rowValues, int from, int to) {
+        if (to - from != rows) {
+            throw new IllegalArgumentException("参数行数与SQL模板不一致: " + (to - from) + " != " + rows);
+        }
+        Object[] params = new Object[columnIndexes.length * rows];
+        int index = 0;
+        for (int row = from; row < to; row++) {
+            Object[] values = rowValues[row];
+            for (int column : columnIndexes) {
+                params[index++] = values[column];
+            }
+        }
+        return params;
+    }
+}
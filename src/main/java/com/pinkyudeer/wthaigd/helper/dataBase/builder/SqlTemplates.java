@@ -0,0 +1,264 @@
+package com.pinkyudeer.wthaigd.helper.dataBase.builder;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata.ColumnMetadata;
+
+/**
+ * SQL模板缓存。
+ * 按 (语句类型, 实体类, 列集合, 行数) 缓存 {@link SqlTemplate}，同一形态的插入、更新、删除和主键查询
+ * 只生成一次SQL文本，之后每次执行只需要按绑定计划取参数。
+ * 带 WHERE 条件的查询、更新和删除按形态（表、列、操作符、IN 参数个数、条件组结构以及其他子句）
+ * 缓存SQL文本，见 {@link #statement}。
+ * 相同的SQL文本同时也能命中 SQLiteManager 的预编译语句缓存。
+ * 列集合以 {@link BitSet} 表示，位序号与 {@link EntityMetadata#getColumns()} 的下标一致。
+ */
+public class SqlTemplates {
+
+    /** 缓存的模板数量上限，超过后新形态的模板照常生成但不再缓存 */
+    public static final int MAX_TEMPLATES = 2048;
+
+    private static final Map<TemplateKey, SqlTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    /** 带条件语句的SQL文本，键为构建器生成的形态键 */
+    private static final Map<List<Object>, String> STATEMENTS = new ConcurrentHashMap<>();
+
+    /**
+     * 模板的语句类型
+     */
+    private enum Kind {
+        INSERT,
+        UPDATE,
+        UPDATE_BY_ID,
+        DELETE_BY_ID,
+        SELECT_BY_ID
+    }
+
+    /**
+     * 模板缓存键
+     */
+    private static final class TemplateKey {
+
+        private final Kind kind;
+        private final Class<?> type;
+        private final BitSet columns;
+        private final int rows;
+        private final int hash;
+
+        private TemplateKey(Kind kind, Class<?> type, BitSet columns, int rows) {
+            this.kind = kind;
+            this.type = type;
+            this.columns = columns;
+            this.rows = rows;
+            this.hash = Objects.hash(kind, type, columns, rows);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TemplateKey key)) return false;
+            return kind == key.kind && type == key.type && rows == key.rows && columns.equals(key.columns);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * 获取列值数组中非空列的集合。
+     *
+     * @param values 列值数组
+     * @return 非空列的序号集合
+     */
+    public static BitSet nonNullColumns(Object[] values) {
+        BitSet columns = new BitSet(values.length);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) columns.set(i);
+        }
+        return columns;
+    }
+
+    /**
+     * 获取插入模板：INSERT INTO t (a, b) VALUES (?, ?)[, (?, ?)...]
+     *
+     * @param metadata 实体元数据
+     * @param columns  插入的列集合
+     * @param rows     每条语句插入的行数
+     * @return SQL模板
+     */
+    public static SqlTemplate insert(EntityMetadata<?> metadata, BitSet columns, int rows) {
+        return get(new TemplateKey(Kind.INSERT, metadata.getType(), columns, rows), () -> {
+            if (columns.isEmpty()) {
+                throw new IllegalStateException("没有可以插入的列值");
+            }
+            List<ColumnMetadata> all = metadata.getColumns();
+            StringJoiner names = new StringJoiner(", ", "(", ")");
+            StringJoiner placeholders = new StringJoiner(", ", "(", ")");
+            for (int i = columns.nextSetBit(0); i >= 0; i = columns.nextSetBit(i + 1)) {
+                names.add(
+                    all.get(i)
+                        .getName());
+                placeholders.add("?");
+            }
+            StringJoiner values = new StringJoiner(", ");
+            for (int i = 0; i < rows; i++) {
+                values.add(placeholders.toString());
+            }
+            String sql = "INSERT INTO " + metadata.getTableName() + " " + names + " VALUES " + values;
+            return new SqlTemplate(sql, columns.stream()
+                .toArray(), rows);
+        });
+    }
+
+    /**
+     * 获取不带条件的更新模板：UPDATE t SET a = ?, b = ?，WHERE 子句由调用方追加。
+     *
+     * @param metadata 实体元数据
+     * @param columns  更新的列集合
+     * @return SQL模板
+     */
+    public static SqlTemplate update(EntityMetadata<?> metadata, BitSet columns) {
+        return get(
+            new TemplateKey(Kind.UPDATE, metadata.getType(), columns, 1),
+            () -> new SqlTemplate(buildUpdate(metadata, columns), columns.stream()
+                .toArray(), 1));
+    }
+
+    /**
+     * 获取按主键更新的模板：UPDATE t SET a = ?, b = ? WHERE pk = ?，主键值作为最后一个参数。
+     *
+     * @param metadata 实体元数据
+     * @param columns  更新的列集合
+     * @return SQL模板
+     */
+    public static SqlTemplate updateById(EntityMetadata<?> metadata, BitSet columns) {
+        return get(new TemplateKey(Kind.UPDATE_BY_ID, metadata.getType(), columns, 1), () -> {
+            String sql = buildUpdate(metadata, columns) + " WHERE "
+                + metadata.requirePrimaryKey()
+                    .getName()
+                + " = ?";
+            return new SqlTemplate(sql, columns.stream()
+                .toArray(), 1);
+        });
+    }
+
+    /**
+     * 获取按主键删除的模板：DELETE FROM t WHERE pk = ?
+     *
+     * @param metadata 实体元数据
+     * @return SQL模板
+     */
+    public static SqlTemplate deleteById(EntityMetadata<?> metadata) {
+        return get(new TemplateKey(Kind.DELETE_BY_ID, metadata.getType(), new BitSet(), 1), () -> {
+            String sql = "DELETE FROM " + metadata.getTableName()
+                + " WHERE "
+                + metadata.requirePrimaryKey()
+                    .getName()
+                + " = ?";
+            return new SqlTemplate(sql, new int[0], 1);
+        });
+    }
+
+    /**
+     * 获取按主键查询的模板：SELECT * FROM t WHERE pk = ? LIMIT 1
+     *
+     * @param metadata 实体元数据
+     * @return SQL模板
+     */
+    public static SqlTemplate selectById(EntityMetadata<?> metadata) {
+        return get(new TemplateKey(Kind.SELECT_BY_ID, metadata.getType(), new BitSet(), 1), () -> {
+            String sql = "SELECT * FROM " + metadata.getTableName()
+                + " WHERE "
+                + metadata.requirePrimaryKey()
+                    .getName()
+                + " = ? LIMIT 1";
+            return new SqlTemplate(sql, new int[0], 1);
+        });
+    }
+
+    /**
+     * 获取带条件语句的SQL文本。
+     * 形态键相同的语句只拼接一次SQL，之后构建器只需要按相同的顺序收集参数。
+     *
+     * @param shape   形态键，缓存后不能再修改
+     * @param factory SQL生成函数
+     * @return SQL文本
+     */
+    public static String statement(List<Object> shape, Supplier<String> factory) {
+        String sql = STATEMENTS.get(shape);
+        if (sql != null) return sql;
+        sql = factory.get();
+        if (STATEMENTS.size() < MAX_TEMPLATES) {
+            String existing = STATEMENTS.putIfAbsent(shape, sql);
+            if (existing != null) sql = existing;
+        }
+        return sql;
+    }
+
+    /**
+     * 获取已缓存的模板数量。
+     *
+     * @return 模板数量
+     */
+    public static int size() {
+        return TEMPLATES.size() + STATEMENTS.size();
+    }
+
+    /**
+     * 清空模板缓存。
+     */
+    public static void clear() {
+        TEMPLATES.clear();
+        STATEMENTS.clear();
+    }
+
+    /**
+     * 查找或生成模板。
+     * 列集合由调用方创建，缓存前复制一份，避免调用方之后修改影响缓存键。
+     *
+     * @param key     缓存键
+     * @param factory 模板生成函数
+     * @return SQL模板
+     */
+    private static SqlTemplate get(TemplateKey key, Supplier<SqlTemplate> factory) {
+        SqlTemplate template = TEMPLATES.get(key);
+        if (template != null) return template;
+        template = factory.get();
+        if (TEMPLATES.size() < MAX_TEMPLATES) {
+            TemplateKey stored = new TemplateKey(key.kind, key.type, (BitSet) key.columns.clone(), key.rows);
+            SqlTemplate existing = TEMPLATES.putIfAbsent(stored, template);
+            if (existing != null) template = existing;
+        }
+        return template;
+    }
+
+    /**
+     * 生成 UPDATE ... SET 部分。
+     *
+     * @param metadata 实体元数据
+     * @param columns  更新的列集合
+     * @return SQL文本
+     */
+    private static String buildUpdate(EntityMetadata<?> metadata, BitSet columns) {
+        if (columns.isEmpty()) {
+            throw new IllegalStateException("没有可以更新的列值");
+        }
+        List<ColumnMetadata> all = metadata.getColumns();
+        StringJoiner assignments = new StringJoiner(", ");
+        for (int i = columns.nextSetBit(0); i >= 0; i = columns.nextSetBit(i + 1)) {
+            assignments.add(
+                all.get(i)
+                    .getName() + " = ?");
+        }
+        return "UPDATE " + metadata.getTableName() + " SET " + assignments;
+    }
+}
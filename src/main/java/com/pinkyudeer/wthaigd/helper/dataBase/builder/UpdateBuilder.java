@@ -1,9 +1,16 @@
 package com.pinkyudeer.wthaigd.helper.dataBase.builder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
+import com.pinkyudeer.wthaigd.helper.dataBase.DataBaseExecutor;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntitySnapshot;
+import com.pinkyudeer.wthaigd.helper.dataBase.QueryPlanAuditor;
 import com.pinkyudeer.wthaigd.helper.dataBase.SQLiteManager;
 
 /**
@@ -51,6 +58,19 @@ public class UpdateBuilder<T> extends BaseBuilder<T, UpdateBuilder<T>> {
         }
     }
 
+    /**
+     * 基于快照比对模式的构造函数，只更新相对于快照被修改的列
+     *
+     * @param entity   当前实体
+     * @param snapshot 实体修改前的快照
+     */
+    public UpdateBuilder(T entity, EntitySnapshot<T> snapshot) {
+        super(entity, snapshot);
+        if (entity == null || snapshot == null) {
+            throw new IllegalArgumentException("更新操作的实体对象和快照不能为空");
+        }
+    }
+
     /**
      * 设置旧实体对象，用于比较并只更新变更的字段
      *
@@ -65,41 +85,77 @@ public class UpdateBuilder<T> extends BaseBuilder<T, UpdateBuilder<T>> {
 
     @Override
     public Integer execute() {
-        Map<String, Object> columnValues;
+        if (entity == null) {
+            throw new IllegalStateException("没有可以更新的列值");
+        }
+        EntityMetadata<T> metadata = getMetadata();
+        Object[] values = metadata.getValues(entity);
+        BitSet columns;
 
         // 检查是否启用了比较模式
-        if (compareMode && oldEntity != null) {
-            // 使用基类的getDifferentValues方法获取差异字段
-            columnValues = getDifferentValues();
-            if (columnValues.isEmpty()) {
+        if (compareMode && (oldEntity != null || snapshot != null)) {
+            columns = getDifferentColumns(values);
+            if (columns.isEmpty()) {
                 return 0; // 没有变化，不执行更新
             }
         } else {
-            // 使用所有字段（原始行为）
-            columnValues = getColumnValues();
+            // 使用所有非空字段（原始行为）
+            columns = SqlTemplates.nonNullColumns(values);
 
             // 确保有字段被更新
-            if (columnValues.isEmpty()) {
+            if (columns.isEmpty()) {
                 throw new IllegalStateException("没有可以更新的列值");
             }
         }
 
-        StringBuilder setClause = new StringBuilder();
-        List<Object> executeParams = new ArrayList<>();
-        boolean first = true;
-
-        for (Map.Entry<String, Object> entry : columnValues.entrySet()) {
-            if (!first) setClause.append(", ");
-            setClause.append(entry.getKey())
-                .append(" = ?");
-            executeParams.add(entry.getValue());
-            first = false;
+        // 按主键更新时整条语句都来自缓存的模板
+        if (usePrimaryKey) {
+            SqlTemplate template = SqlTemplates.updateById(metadata, columns);
+            Object[] executeParams = template.bind(values, buildPrimaryKeyCondition().getRight());
+            Integer affected = (Integer) SQLiteManager.executeSafeSQL(template.getSql(), executeParams);
+            invalidateCache(entity);
+            return affected;
         }
 
-        String sql = String.format("UPDATE %s SET %s", getTableName(), setClause);
+        SqlTemplate template = SqlTemplates.update(metadata, columns);
+        List<Object> executeParams = new ArrayList<>(Arrays.asList(template.bind(values)));
+        collectWhereParams(executeParams, true, "更新");
+        String sql = SqlTemplates.statement(
+            shapeKey("UPDATE", columns.clone()),
+            () -> addWhereClause(template.getSql(), new ArrayList<>(), true, "更新"));
 
-        sql = addWhereClause(sql, executeParams, true, "更新");
+        Integer affected = (Integer) SQLiteManager.executeSafeSQL(sql, executeParams.toArray());
+        invalidateCache();
+        return affected;
+    }
 
-        return (Integer) SQLiteManager.executeSafeSQL(sql, executeParams.toArray());
+    /**
+     * 获取实体与快照（或旧实体）不同的列。
+     * 与旧实体比对时只考虑新值非空的列，与快照比对时包括被改为null的列。
+     *
+     * @param values 实体当前的列值
+     * @return 差异列的序号集合
+     */
+    private BitSet getDifferentColumns(Object[] values) {
+        if (snapshot != null) {
+            return snapshot.getDirtyColumns(entity);
+        }
+        Object[] oldValues = getMetadata().getValues(oldEntity);
+        BitSet columns = new BitSet(values.length);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null && !Objects.equals(values[i], oldValues[i])) {
+                columns.set(i);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * 在数据库线程上异步执行更新操作。
+     *
+     * @return 受影响的行数
+     */
+    public CompletableFuture<Integer> executeAsync() {
+        return DataBaseExecutor.submit(QueryPlanAuditor.traced(this::execute));
     }
 }
@@ -0,0 +1,217 @@
+package com.pinkyudeer.wthaigd.helper.dataBase.builder;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+
+import com.pinkyudeer.wthaigd.helper.dataBase.DataBaseExecutor;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata.ColumnMetadata;
+import com.pinkyudeer.wthaigd.helper.dataBase.QueryPlanAuditor;
+import com.pinkyudeer.wthaigd.helper.dataBase.SQLiteManager;
+
+/**
+ * 插入或更新构建器。
+ * 生成 SQLite 原生的 INSERT ... ON CONFLICT(...) DO UPDATE SET ... 语句，一次往返完成“存在则更新，不存在则插入”，
+ * 不需要先查询再比对。
+ * 冲突列默认为主键；冲突时更新的列默认为插入的所有非空列（冲突列除外），可以通过 {@link #updateColumns} 指定，
+ * 或通过 {@link #doNothing()} 在冲突时保留已有的行。
+ * 支持批量形式：按非空列集合分组，按绑定参数上限分块，所有语句在同一个事务中执行。
+ *
+ * @param <T> 实体类型
+ */
+public class UpsertBuilder<T> extends BaseBuilder<T, UpsertBuilder<T>> {
+
+    private final List<T> entities;
+    private final List<ColumnMetadata> conflictColumns = new ArrayList<>();
+    private List<ColumnMetadata> updateColumns;
+    private boolean doNothing = false;
+
+    /**
+     * 单个实体的构造函数。
+     *
+     * @param entity 要插入或更新的实体对象
+     */
+    public UpsertBuilder(T entity) {
+        this(entity == null ? null : Collections.singletonList(entity));
+    }
+
+    /**
+     * 批量形式的构造函数。
+     *
+     * @param entities 要插入或更新的实体对象列表，必须为同一类型
+     */
+    public UpsertBuilder(List<T> entities) {
+        super(entities == null || entities.isEmpty() ? null : entities.get(0));
+        if (entities == null || entities.isEmpty()) {
+            throw new IllegalArgumentException("插入或更新的实体列表不能为空");
+        }
+        for (T item : entities) {
+            if (item == null || item.getClass() != entityClass) {
+                throw new IllegalArgumentException("插入或更新的实体必须为同一类型且不能为null: " + entityClass.getName());
+            }
+        }
+        this.entities = entities;
+    }
+
+    /**
+     * 设置冲突检测的列，需要是主键或唯一约束/唯一索引的列。未设置时使用主键。
+     *
+     * @param columns 列名
+     * @return this
+     */
+    public UpsertBuilder<T> onConflict(String... columns) {
+        conflictColumns.clear();
+        conflictColumns.addAll(resolveColumns(columns));
+        return this;
+    }
+
+    /**
+     * 设置冲突时更新的列。只有同时被插入（值非空）的列会被更新，其余列保持数据库中的值。
+     *
+     * @param columns 列名
+     * @return this
+     */
+    public UpsertBuilder<T> updateColumns(String... columns) {
+        this.updateColumns = resolveColumns(columns);
+        this.doNothing = false;
+        return this;
+    }
+
+    /**
+     * 冲突时不做任何修改，保留已有的行。
+     *
+     * @return this
+     */
+    public UpsertBuilder<T> doNothing() {
+        this.doNothing = true;
+        return this;
+    }
+
+    /**
+     * 执行插入或更新操作。
+     *
+     * @return 受影响的行数总和（插入和更新的行都会计入）
+     */
+    @Override
+    public Integer execute() {
+        EntityMetadata<T> metadata = getMetadata();
+        if (conflictColumns.isEmpty()) {
+            conflictColumns.add(metadata.requirePrimaryKey());
+        }
+
+        // 按非空列集合分组，同组实体共用同一条SQL
+        Map<BitSet, List<Object[]>> groups = new LinkedHashMap<>();
+        for (T item : entities) {
+            Object[] values = metadata.getValues(item);
+            BitSet columns = SqlTemplates.nonNullColumns(values);
+            if (columns.isEmpty()) {
+                throw new IllegalStateException("没有可以插入的列值");
+            }
+            groups.computeIfAbsent(columns, k -> new ArrayList<>())
+                .add(values);
+        }
+
+        Integer total = SQLiteManager.inTransaction(() -> {
+            int sum = 0;
+            for (Map.Entry<BitSet, List<Object[]>> group : groups.entrySet()) {
+                sum += upsertGroup(metadata, group.getKey(), group.getValue());
+            }
+            return sum;
+        });
+        // 按主键冲突时被更新的就是实体自身的行，否则被更新的行无法确定
+        if (conflictColumns.size() == 1 && conflictColumns.get(0) == metadata.getPrimaryKey()) {
+            for (T item : entities) {
+                invalidateCache(item);
+            }
+        } else {
+            invalidateCache();
+        }
+        return total;
+    }
+
+    /**
+     * 在数据库线程上异步执行插入或更新操作。
+     *
+     * @return 受影响的行数总和
+     */
+    public CompletableFuture<Integer> executeAsync() {
+        return DataBaseExecutor.submit(QueryPlanAuditor.traced(this::execute));
+    }
+
+    /**
+     * 插入或更新列集合相同的一组实体。
+     *
+     * @param metadata 实体元数据
+     * @param columns  列集合
+     * @param rows     每行的列值数组
+     * @return 受影响的行数
+     */
+    private int upsertGroup(EntityMetadata<T> metadata, BitSet columns, List<Object[]> rows) {
+        String conflictClause = buildConflictClause(metadata, columns);
+        int rowsPerStatement = Math.max(1, BatchInsertBuilder.MAX_BOUND_PARAMETERS / columns.cardinality());
+        Object[][] rowValues = rows.toArray(new Object[0][]);
+
+        int total = 0;
+        for (int start = 0; start < rowValues.length; start += rowsPerStatement) {
+            int end = Math.min(start + rowsPerStatement, rowValues.length);
+            SqlTemplate template = SqlTemplates.insert(metadata, columns, end - start);
+            total += (Integer) SQLiteManager
+                .executeSafeSQL(template.getSql() + conflictClause, template.bindRows(rowValues, start, end));
+        }
+        return total;
+    }
+
+    /**
+     * 生成 ON CONFLICT 子句。
+     *
+     * @param metadata 实体元数据
+     * @param columns  本组插入的列集合
+     * @return ON CONFLICT 子句
+     */
+    private String buildConflictClause(EntityMetadata<T> metadata, BitSet columns) {
+        StringJoiner target = new StringJoiner(", ", " ON CONFLICT(", ")");
+        for (ColumnMetadata column : conflictColumns) {
+            target.add(column.getName());
+        }
+
+        StringJoiner assignments = new StringJoiner(", ");
+        if (!doNothing) {
+            List<ColumnMetadata> all = metadata.getColumns();
+            for (int i = columns.nextSetBit(0); i >= 0; i = columns.nextSetBit(i + 1)) {
+                ColumnMetadata column = all.get(i);
+                if (conflictColumns.contains(column)) continue;
+                if (updateColumns != null && !updateColumns.contains(column)) continue;
+                assignments.add(column.getName() + " = excluded." + column.getName());
+            }
+        }
+        if (assignments.length() == 0) {
+            return target + " DO NOTHING";
+        }
+        return target + " DO UPDATE SET " + assignments;
+    }
+
+    /**
+     * 将列名解析为列元数据。
+     *
+     * @param columns 列名
+     * @return 列元数据列表
+     */
+    private List<ColumnMetadata> resolveColumns(String... columns) {
+        EntityMetadata<T> metadata = getMetadata();
+        List<ColumnMetadata> resolved = new ArrayList<>();
+        for (String name : columns) {
+            ColumnMetadata column = metadata.getColumn(name);
+            if (column == null) {
+                throw new IllegalArgumentException("实体 " + entityClass.getName() + " 中不存在列: " + name);
+            }
+            resolved.add(column);
+        }
+        return resolved;
+    }
+}
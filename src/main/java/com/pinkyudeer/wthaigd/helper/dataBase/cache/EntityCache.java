@@ -0,0 +1,237 @@
+package com.pinkyudeer.wthaigd.helper.dataBase.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * 单个实体类型的主键缓存。
+ * 以主键为键缓存实体的列值数组（列值都是不可变对象），命中时由调用方重新构造实体，
+ * 因此调用方修改返回的实体不会影响缓存。
+ * 支持两种淘汰策略：
+ * <ul>
+ * <li>LRU：淘汰最久未访问的条目</li>
+ * <li>SLRU（分段LRU）：新条目先进入试用段，再次命中后晋升到保护段；保护段满时最旧的条目降回试用段，
+ * 只访问一次的条目只会挤占试用段，不会冲掉反复访问的热点条目（如在线玩家）</li>
+ * </ul>
+ * 另外支持按写入时间过期。主键统一按字符串形式比较，UUID 主键和以字符串保存的 UUID 主键对应同一条目。
+ * 所有方法都是同步的，可以在任意线程调用。
+ */
+public class EntityCache {
+
+    /**
+     * 淘汰策略
+     */
+    public enum Policy {
+        /** 不缓存 */
+        NONE,
+        /** 最近最少使用 */
+        LRU,
+        /** 分段最近最少使用 */
+        SLRU
+    }
+
+    /** SLRU 保护段占总容量的比例 */
+    private static final double PROTECTED_RATIO = 0.8;
+
+    /**
+     * 缓存条目
+     */
+    private static final class Entry {
+
+        private final Object[] values;
+        private final long loadedAt;
+
+        private Entry(Object[] values, long loadedAt) {
+            this.values = values;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final String name;
+    private final Policy policy;
+    private final int capacity;
+    private final int protectedCapacity;
+    private final long ttlNanos;
+    // accessOrder = true，迭代顺序即最近最少使用顺序；LRU 策略只使用试用段
+    private final LinkedHashMap<Object, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Object, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Getter
+    private long hits = 0;
+    @Getter
+    private long misses = 0;
+    @Getter
+    private long evictions = 0;
+    @Getter
+    private long expirations = 0;
+
+    /**
+     * 构造函数。
+     *
+     * @param name       缓存名称（通常为表名），用于统计输出
+     * @param policy     淘汰策略，不能为 NONE
+     * @param capacity   最多缓存的条目数量
+     * @param ttlSeconds 条目写入后的有效时间（秒），0 表示不过期
+     */
+    public EntityCache(String name, Policy policy, int capacity, int ttlSeconds) {
+        if (policy == Policy.NONE) {
+            throw new IllegalArgumentException("实体缓存的淘汰策略不能为NONE");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("实体缓存容量必须大于0");
+        }
+        this.name = name;
+        this.policy = policy;
+        this.capacity = capacity;
+        this.protectedCapacity = policy == Policy.SLRU ? (int) (capacity * PROTECTED_RATIO) : 0;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+    }
+
+    /**
+     * 获取主键对应的列值。
+     *
+     * @param key 主键
+     * @return 列值数组，未命中或已过期时返回null
+     */
+    public synchronized Object[] get(Object key) {
+        key = normalize(key);
+        Entry entry = protectedSegment.get(key);
+        if (entry == null) {
+            entry = probation.get(key);
+            if (entry != null && !isExpired(entry) && policy == Policy.SLRU) {
+                // 试用段再次命中，晋升到保护段
+                probation.remove(key);
+                protectedSegment.put(key, entry);
+                demoteIfNeeded();
+            }
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (isExpired(entry)) {
+            invalidate(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.values;
+    }
+
+    /**
+     * 写入主键对应的列值。
+     *
+     * @param key    主键
+     * @param values 列值数组，写入后不应再修改
+     */
+    public synchronized void put(Object key, Object[] values) {
+        key = normalize(key);
+        Entry entry = new Entry(values, System.nanoTime());
+        if (protectedSegment.containsKey(key)) {
+            protectedSegment.put(key, entry);
+            return;
+        }
+        probation.put(key, entry);
+        evictIfNeeded();
+    }
+
+    /**
+     * 移除主键对应的条目。
+     *
+     * @param key 主键
+     */
+    public synchronized void invalidate(Object key) {
+        key = normalize(key);
+        if (protectedSegment.remove(key) == null) {
+            probation.remove(key);
+        }
+    }
+
+    /**
+     * 清空缓存。
+     */
+    public synchronized void invalidateAll() {
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    public synchronized int size() {
+        return probation.size() + protectedSegment.size();
+    }
+
+    /**
+     * 获取缓存命中率。
+     *
+     * @return 命中率，范围 0~1，没有访问时为 0
+     */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * 统一主键的比较形式。
+     *
+     * @param key 主键
+     * @return 字符串形式的主键
+     */
+    private static Object normalize(Object key) {
+        return String.valueOf(key);
+    }
+
+    /**
+     * 条目是否已过期。
+     *
+     * @param entry 缓存条目
+     * @return 已过期时返回true
+     */
+    private boolean isExpired(Entry entry) {
+        return ttlNanos > 0 && System.nanoTime() - entry.loadedAt > ttlNanos;
+    }
+
+    /**
+     * 保护段超出容量时，把最旧的条目降回试用段。
+     */
+    private void demoteIfNeeded() {
+        Iterator<Map.Entry<Object, Entry>> iterator = protectedSegment.entrySet()
+            .iterator();
+        while (protectedSegment.size() > protectedCapacity && iterator.hasNext()) {
+            Map.Entry<Object, Entry> eldest = iterator.next();
+            iterator.remove();
+            probation.put(eldest.getKey(), eldest.getValue());
+        }
+        evictIfNeeded();
+    }
+
+    /**
+     * 总数超出容量时，淘汰试用段中最久未访问的条目。
+     */
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<Object, Entry>> iterator = probation.entrySet()
+            .iterator();
+        while (size() > capacity && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+            "%s: %d/%d 条(%s), 命中 %d, 未命中 %d, 命中率 %.1f%%, 淘汰 %d, 过期 %d",
+            name,
+            size(),
+            capacity,
+            policy,
+            hits,
+            misses,
+            getHitRate() * 100,
+            evictions,
+            expirations);
+    }
+}
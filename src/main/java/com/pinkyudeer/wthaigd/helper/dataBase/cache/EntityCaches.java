@@ -0,0 +1,108 @@
+package com.pinkyudeer.wthaigd.helper.dataBase.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.pinkyudeer.wthaigd.Wthaigd;
+import com.pinkyudeer.wthaigd.helper.config.ConfigHelper;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityMetadata;
+
+/**
+ * 主键实体缓存注册表。
+ * 每个实体类型一个 {@link EntityCache}，策略、容量和过期时间由配置决定，在每次打开世界数据库时重新读取。
+ * 读取通过 SQLHelper.selectByPremiereKey 进入缓存；所有构建器写入后调用 {@link #invalidate} 或
+ * {@link #invalidateAll} 使对应条目失效，无法确定影响哪些行的写入（按条件更新或删除）会清空整个类型的缓存。
+ * 事务内不写入缓存，避免回滚后缓存中留下未提交的数据。
+ */
+public class EntityCaches {
+
+    private static final Map<Class<?>, EntityCache> CACHES = new ConcurrentHashMap<>();
+    private static volatile EntityCache.Policy policy;
+    private static volatile int capacity;
+    private static volatile int ttlSeconds;
+
+    /**
+     * 清空所有缓存并重新读取配置。
+     */
+    public static void reset() {
+        CACHES.clear();
+        String configured = ConfigHelper.getString("sqlite.entityCache.policy", "slru");
+        EntityCache.Policy parsed;
+        try {
+            parsed = EntityCache.Policy.valueOf(configured.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            Wthaigd.LOG.warn("未知的实体缓存策略: {}，使用 SLRU", configured);
+            parsed = EntityCache.Policy.SLRU;
+        }
+        capacity = ConfigHelper.getInt("sqlite.entityCache.maxEntries", 1024);
+        ttlSeconds = ConfigHelper.getInt("sqlite.entityCache.ttlSeconds", 300);
+        policy = parsed;
+    }
+
+    /**
+     * 获取实体类型的缓存。
+     *
+     * @param type 实体类
+     * @return 实体缓存，缓存被禁用时返回null
+     */
+    public static EntityCache forType(Class<?> type) {
+        if (policy == null) reset();
+        if (policy == EntityCache.Policy.NONE) return null;
+        return CACHES.computeIfAbsent(
+            type,
+            k -> new EntityCache(
+                EntityMetadata.of(k)
+                    .getTableName(),
+                policy,
+                capacity,
+                ttlSeconds));
+    }
+
+    /**
+     * 使实体类型中指定主键的缓存条目失效。
+     *
+     * @param type 实体类
+     * @param key  主键
+     */
+    public static void invalidate(Class<?> type, Object key) {
+        EntityCache cache = CACHES.get(type);
+        if (cache != null && key != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * 清空实体类型的缓存。
+     *
+     * @param type 实体类
+     */
+    public static void invalidateAll(Class<?> type) {
+        EntityCache cache = CACHES.get(type);
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * 获取所有缓存的统计信息。
+     *
+     * @return 每个实体类型一行统计
+     */
+    public static List<String> getStats() {
+        List<String> stats = new ArrayList<>();
+        if (policy == EntityCache.Policy.NONE) {
+            stats.add("实体缓存: 已禁用");
+            return stats;
+        }
+        if (CACHES.isEmpty()) {
+            stats.add("实体缓存: 暂无数据");
+        }
+        for (EntityCache cache : CACHES.values()) {
+            stats.add("实体缓存 " + cache);
+        }
+        return stats;
+    }
+}
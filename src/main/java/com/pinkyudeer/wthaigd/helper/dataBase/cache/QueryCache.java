@@ -0,0 +1,216 @@
+package com.pinkyudeer.wthaigd.helper.dataBase.cache;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.pinkyudeer.wthaigd.helper.config.ConfigHelper;
+import com.pinkyudeer.wthaigd.helper.dataBase.SQLiteManager;
+
+/**
+ * 查询结果缓存。
+ * 以 (读取方式, SQL, 参数) 为键缓存查询结果，每个条目记录读取的表以及读取前各表的版本号。
+ * 构建器每次写入一张表时只需把该表的版本号加一（O(1)），依赖该表的条目在下次读取时发现版本不一致即视为失效，
+ * 不需要遍历或维护反向索引。
+ * 缓存的值由调用方保证不可变（通常为列值数组的列表），调用方每次从中构造新的结果对象。
+ * 事务内的查询不写入缓存，避免回滚后缓存中留下未提交的数据。
+ */
+public class QueryCache {
+
+    private static final Map<String, AtomicLong> TABLE_VERSIONS = new ConcurrentHashMap<>();
+    // 用于缓存结果为null的查询
+    private static final Object NULL_RESULT = new Object();
+
+    /**
+     * 缓存键
+     */
+    private static final class Key {
+
+        private final String kind;
+        private final String sql;
+        private final Object[] params;
+        private final int hash;
+
+        private Key(String kind, String sql, Object[] params) {
+            this.kind = kind;
+            this.sql = sql;
+            this.params = params;
+            this.hash = 31 * (31 * kind.hashCode() + sql.hashCode()) + Arrays.hashCode(params);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key other)) return false;
+            return hash == other.hash && kind.equals(other.kind)
+                && sql.equals(other.sql)
+                && Arrays.equals(params, other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class Entry {
+
+        private final String[] tables;
+        private final long[] versions;
+        private final Object value;
+
+        private Entry(String[] tables, long[] versions, Object value) {
+            this.tables = tables;
+            this.versions = versions;
+            this.value = value;
+        }
+    }
+
+    private static int capacity = 0;
+    // accessOrder = true，迭代顺序即最近最少使用顺序
+    private static final LinkedHashMap<Key, Entry> ENTRIES = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > capacity) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private static long hits = 0;
+    private static long misses = 0;
+    private static long stale = 0;
+    private static long evictions = 0;
+
+    private QueryCache() {}
+
+    /**
+     * 清空缓存和统计并重新读取配置，在每次打开世界数据库时调用。
+     */
+    public static synchronized void reset() {
+        ENTRIES.clear();
+        TABLE_VERSIONS.clear();
+        hits = misses = stale = evictions = 0;
+        capacity = ConfigHelper.getInt("sqlite.queryCache.maxEntries", 256);
+    }
+
+    /**
+     * 表被写入后增加其版本号，使所有读取过该表的缓存条目失效。
+     *
+     * @param table 表名
+     */
+    public static void bumpVersion(String table) {
+        TABLE_VERSIONS.computeIfAbsent(table, k -> new AtomicLong())
+            .incrementAndGet();
+    }
+
+    /**
+     * 获取表的当前版本号。
+     *
+     * @param table 表名
+     * @return 版本号
+     */
+    public static long getVersion(String table) {
+        AtomicLong version = TABLE_VERSIONS.get(table);
+        return version == null ? 0 : version.get();
+    }
+
+    /**
+     * 读取缓存的查询结果，未命中或已失效时通过加载函数执行查询并写入缓存。
+     * 版本号在查询前读取，查询期间发生的写入会使新写入的条目立即失效，不会缓存到旧数据。
+     *
+     * @param kind   读取方式，同一SQL以不同方式读取（如实体列表和列值数组）时用于区分
+     * @param sql    查询SQL
+     * @param params SQL参数
+     * @param tables 查询读取的表
+     * @param loader 执行查询的函数，返回值写入缓存后不应再被修改
+     * @param <R>    结果类型
+     * @return 查询结果
+     */
+    @SuppressWarnings("unchecked")
+    public static <R> R get(String kind, String sql, Object[] params, String[] tables, Supplier<R> loader) {
+        if (!isEnabled()) return loader.get();
+        Key key = new Key(kind, sql, params);
+        synchronized (QueryCache.class) {
+            Entry entry = ENTRIES.get(key);
+            if (entry != null) {
+                if (isCurrent(entry)) {
+                    hits++;
+                    return entry.value == NULL_RESULT ? null : (R) entry.value;
+                }
+                ENTRIES.remove(key);
+                stale++;
+            }
+            misses++;
+        }
+
+        long[] versions = new long[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            versions[i] = getVersion(tables[i]);
+        }
+        R value = loader.get();
+        if (!SQLiteManager.isInTransaction()) {
+            synchronized (QueryCache.class) {
+                ENTRIES.put(key, new Entry(tables, versions, value == null ? NULL_RESULT : value));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 是否启用了查询结果缓存。
+     *
+     * @return 容量大于0时返回true
+     */
+    public static synchronized boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * 清空缓存的查询结果。
+     */
+    public static synchronized void clear() {
+        ENTRIES.clear();
+    }
+
+    /**
+     * 条目读取的表自读取以来是否都没有被写入。
+     *
+     * @param entry 缓存条目
+     * @return 没有被写入时返回true
+     */
+    private static boolean isCurrent(Entry entry) {
+        for (int i = 0; i < entry.tables.length; i++) {
+            if (getVersion(entry.tables[i]) != entry.versions[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 获取缓存的统计信息。
+     *
+     * @return 统计信息
+     */
+    public static synchronized String getStats() {
+        if (capacity <= 0) return "查询结果缓存: 已禁用";
+        long total = hits + misses;
+        return String.format(
+            "查询结果缓存: %d/%d 条, 命中 %d, 未命中 %d, 命中率 %.1f%%, 失效 %d, 淘汰 %d",
+            ENTRIES.size(),
+            capacity,
+            hits,
+            misses,
+            total == 0 ? 0 : hits * 100.0 / total,
+            stale,
+            evictions);
+    }
+}
@@ -0,0 +1,35 @@
+package com.pinkyudeer.wthaigd.helper.dataBase.converter;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 字段类型转换器。
+ * 负责一种 Java 类型与数据库存储值之间的双向转换，读取和写入使用同一种编码。
+ * write 不会收到 null，写入 null 由调用方统一处理；列为 NULL 时 read 返回 null。
+ *
+ * @param <T> 字段类型
+ */
+public interface TypeConverter<T> {
+
+    /**
+     * 从结果集读取列值并转换为字段类型。
+     *
+     * @param rs    结果集
+     * @param index 列序号（从1开始）
+     * @return 字段值，列为 NULL 时返回 null
+     * @throws SQLException 当读取失败时抛出
+     */
+    T read(ResultSet rs, int index) throws SQLException;
+
+    /**
+     * 将字段值写入预编译语句参数。
+     *
+     * @param ps    预编译语句
+     * @param index 参数序号（从1开始）
+     * @param value 非空字段值
+     * @throws SQLException 当写入失败时抛出
+     */
+    void write(PreparedStatement ps, int index, T value) throws SQLException;
+}
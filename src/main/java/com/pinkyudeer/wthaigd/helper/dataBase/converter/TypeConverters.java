@@ -0,0 +1,310 @@
+package com.pinkyudeer.wthaigd.helper.dataBase.converter;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类型转换器注册表。
+ * 按 Java 类型注册双向转换器，查询结果会被缓存，实体元数据在构建时为每一列解析一次转换器，
+ * SQL 参数写入时按参数值的类型查找同一组转换器，保证读写编码一致。
+ * SQLite 的列类型只是亲和性声明，实际存储类型取决于写入的值，因此转换器以 Java 类型为键。
+ * 自定义转换器需要在相关实体第一次被访问之前通过 {@link #register} 注册。
+ * UUID 按 {@link UuidStorage} 以16字节 BLOB 或36字符文本写入，读取时两种格式都能识别。
+ */
+public class TypeConverters {
+
+    private static final Map<Class<?>, TypeConverter<?>> CONVERTERS = new ConcurrentHashMap<>();
+
+    /**
+     * UUID 的存储格式
+     */
+    public enum UuidStorage {
+        /** 36字符的文本，如 123e4567-e89b-12d3-a456-426614174000 */
+        TEXT,
+        /** 16字节的 BLOB，高位在前，与文本去掉连字符后的十六进制一致 */
+        BLOB
+    }
+
+    private static volatile UuidStorage uuidStorage = UuidStorage.BLOB;
+
+    /**
+     * 列读取函数
+     */
+    @FunctionalInterface
+    public interface Reader<T> {
+
+        T read(ResultSet rs, int index) throws SQLException;
+    }
+
+    /**
+     * 参数写入函数
+     */
+    @FunctionalInterface
+    public interface Writer<T> {
+
+        void write(PreparedStatement ps, int index, T value) throws SQLException;
+    }
+
+    static {
+        register(String.class, ResultSet::getString, PreparedStatement::setString);
+        TypeConverter<Integer> integerConverter = of((rs, index) -> {
+            int value = rs.getInt(index);
+            return rs.wasNull() ? null : value;
+        }, PreparedStatement::setInt);
+        register(Integer.class, integerConverter);
+        register(int.class, integerConverter);
+        TypeConverter<Long> longConverter = of((rs, index) -> {
+            long value = rs.getLong(index);
+            return rs.wasNull() ? null : value;
+        }, PreparedStatement::setLong);
+        register(Long.class, longConverter);
+        register(long.class, longConverter);
+        TypeConverter<Double> doubleConverter = of((rs, index) -> {
+            double value = rs.getDouble(index);
+            return rs.wasNull() ? null : value;
+        }, PreparedStatement::setDouble);
+        register(Double.class, doubleConverter);
+        register(double.class, doubleConverter);
+        TypeConverter<Boolean> booleanConverter = of((rs, index) -> {
+            boolean value = rs.getBoolean(index);
+            return rs.wasNull() ? null : value;
+        }, PreparedStatement::setBoolean);
+        register(Boolean.class, booleanConverter);
+        register(boolean.class, booleanConverter);
+        register(UUID.class, (rs, index) -> {
+            Object value = rs.getObject(index);
+            if (value == null) return null;
+            // 兼容切换存储格式前写入的值
+            return value instanceof byte[] ? uuidFromBytes((byte[]) value) : UUID.fromString(value.toString());
+        }, (ps, index, value) -> {
+            if (uuidStorage == UuidStorage.BLOB) {
+                ps.setBytes(index, uuidToBytes(value));
+            } else {
+                ps.setString(index, value.toString());
+            }
+        });
+        register(LocalDateTime.class, (rs, index) -> {
+            String value = rs.getString(index);
+            return value == null ? null : parseDateTime(value);
+        }, (ps, index, value) -> ps.setString(index, value.toString()));
+        register(Duration.class, (rs, index) -> {
+            String value = rs.getString(index);
+            return value == null ? null : Duration.parse(value);
+        }, (ps, index, value) -> ps.setString(index, value.toString()));
+        register(Date.class, (rs, index) -> {
+            Object value = rs.getObject(index);
+            if (value == null || value instanceof Date) return (Date) value;
+            if (value instanceof Number number) return new Date(number.longValue());
+            return java.sql.Date.valueOf(value.toString());
+        }, (ps, index, value) -> ps.setLong(index, value.getTime()));
+    }
+
+    /**
+     * 设置 UUID 的存储格式，需要在打开数据库、迁移表结构之前调用。
+     *
+     * @param storage 存储格式
+     */
+    public static void setUuidStorage(UuidStorage storage) {
+        uuidStorage = storage;
+    }
+
+    /**
+     * 获取 UUID 的存储格式。
+     *
+     * @return 存储格式
+     */
+    public static UuidStorage getUuidStorage() {
+        return uuidStorage;
+    }
+
+    /**
+     * 把 UUID 编码为16字节，高64位在前。
+     *
+     * @param uuid UUID
+     * @return 16字节数组
+     */
+    public static byte[] uuidToBytes(UUID uuid) {
+        byte[] bytes = new byte[16];
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (msb >>> (56 - i * 8));
+            bytes[i + 8] = (byte) (lsb >>> (56 - i * 8));
+        }
+        return bytes;
+    }
+
+    /**
+     * 从16字节解码 UUID。
+     *
+     * @param bytes 16字节数组
+     * @return UUID
+     * @throws IllegalArgumentException 当长度不是16字节时抛出
+     */
+    public static UUID uuidFromBytes(byte[] bytes) {
+        if (bytes.length != 16) {
+            throw new IllegalArgumentException("UUID 的字节长度必须为16: " + bytes.length);
+        }
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 8; i++) {
+            msb = (msb << 8) | (bytes[i] & 0xFF);
+            lsb = (lsb << 8) | (bytes[i + 8] & 0xFF);
+        }
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * 注册转换器，覆盖同类型已有的转换器。
+     *
+     * @param type      Java 类型
+     * @param converter 转换器
+     * @param <T>       类型
+     */
+    public static <T> void register(Class<T> type, TypeConverter<T> converter) {
+        CONVERTERS.put(type, converter);
+    }
+
+    /**
+     * 由读取函数和写入函数注册转换器。
+     *
+     * @param type   Java 类型
+     * @param reader 读取函数
+     * @param writer 写入函数
+     * @param <T>    类型
+     */
+    public static <T> void register(Class<T> type, Reader<T> reader, Writer<T> writer) {
+        register(type, of(reader, writer));
+    }
+
+    /**
+     * 由读取函数和写入函数创建转换器。
+     *
+     * @param reader 读取函数
+     * @param writer 写入函数
+     * @param <T>    类型
+     * @return 转换器
+     */
+    public static <T> TypeConverter<T> of(Reader<T> reader, Writer<T> writer) {
+        return new TypeConverter<T>() {
+
+            @Override
+            public T read(ResultSet rs, int index) throws SQLException {
+                return reader.read(rs, index);
+            }
+
+            @Override
+            public void write(PreparedStatement ps, int index, T value) throws SQLException {
+                writer.write(ps, index, value);
+            }
+        };
+    }
+
+    /**
+     * 获取类型对应的转换器。
+     * 依次查找已注册的类型、枚举类型和父类，都没有时使用直接读写对象的转换器，结果会被缓存。
+     *
+     * @param type Java 类型
+     * @param <T>  类型
+     * @return 转换器
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> TypeConverter<T> forType(Class<T> type) {
+        TypeConverter<?> converter = CONVERTERS.get(type);
+        if (converter == null) {
+            converter = resolve(type);
+            TypeConverter<?> existing = CONVERTERS.putIfAbsent(type, converter);
+            if (existing != null) converter = existing;
+        }
+        return (TypeConverter<T>) converter;
+    }
+
+    /**
+     * 将参数值写入预编译语句，按值的类型选择转换器。
+     *
+     * @param ps    预编译语句
+     * @param index 参数序号（从1开始）
+     * @param value 参数值
+     * @throws SQLException 当写入失败时抛出
+     */
+    @SuppressWarnings("unchecked")
+    public static void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+        if (value == null) {
+            ps.setObject(index, null);
+            return;
+        }
+        // 带有方法体的枚举常量是匿名子类，按声明的枚举类型查找
+        Class<?> type = value instanceof Enum<?>enumValue ? enumValue.getDeclaringClass() : value.getClass();
+        ((TypeConverter<Object>) forType(type)).write(ps, index, value);
+    }
+
+    /**
+     * 解析未注册类型的转换器。
+     *
+     * @param type Java 类型
+     * @return 转换器
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static TypeConverter<?> resolve(Class<?> type) {
+        if (type.isEnum()) {
+            return enumConverter((Class) type);
+        }
+        Class<?> parent = type.getSuperclass();
+        while (parent != null && parent != Object.class) {
+            TypeConverter<?> converter = CONVERTERS.get(parent);
+            if (converter != null) return converter;
+            parent = parent.getSuperclass();
+        }
+        return of((rs, index) -> {
+            Object value = rs.getObject(index);
+            if (value != null && !type.isInstance(value)) {
+                throw new IllegalArgumentException("不支持的字段类型转换: " + value.getClass() + " -> " + type);
+            }
+            return value;
+        }, PreparedStatement::setObject);
+    }
+
+    /**
+     * 创建枚举转换器，以枚举名存储。
+     *
+     * @param type 枚举类型
+     * @param <E>  枚举类型
+     * @return 转换器
+     */
+    private static <E extends Enum<E>> TypeConverter<E> enumConverter(Class<E> type) {
+        Map<String, E> constants = new HashMap<>();
+        for (E constant : type.getEnumConstants()) {
+            constants.put(constant.name(), constant);
+        }
+        return of((rs, index) -> {
+            String value = rs.getString(index);
+            if (value == null) return null;
+            E constant = constants.get(value);
+            if (constant == null) {
+                throw new IllegalArgumentException("未知的枚举值: " + type.getName() + "." + value);
+            }
+            return constant;
+        }, (ps, index, value) -> ps.setString(index, value.name()));
+    }
+
+    /**
+     * 解析日期时间，兼容 ISO 格式和 SQLite CURRENT_TIMESTAMP 的空格分隔格式。
+     *
+     * @param value 日期时间文本
+     * @return 日期时间
+     */
+    private static LocalDateTime parseDateTime(String value) {
+        if (value.length() > 10 && value.charAt(10) == ' ') {
+            value = value.substring(0, 10) + 'T' + value.substring(11);
+        }
+        return LocalDateTime.parse(value);
+    }
+}
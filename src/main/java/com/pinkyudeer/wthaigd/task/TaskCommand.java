@@ -8,6 +8,12 @@ import net.minecraft.util.ChatComponentText;
 
 import com.pinkyudeer.wthaigd.Wthaigd;
 import com.pinkyudeer.wthaigd.helper.config.ConfigHelper;
+import com.pinkyudeer.wthaigd.helper.dataBase.QueryPlanAuditor;
+import com.pinkyudeer.wthaigd.helper.dataBase.SQLiteBenchmark;
+import com.pinkyudeer.wthaigd.helper.dataBase.SQLiteManager;
+import com.pinkyudeer.wthaigd.helper.dataBase.builder.SqlTemplates;
+import com.pinkyudeer.wthaigd.helper.dataBase.cache.EntityCaches;
+import com.pinkyudeer.wthaigd.helper.dataBase.cache.QueryCache;
 
 public class TaskCommand extends CommandBase {
 
@@ -57,6 +63,33 @@ public class TaskCommand extends CommandBase {
                     case "sql" -> {
                         sender.addChatMessage(new ChatComponentText("进入SQL测试模块..."));
                         Wthaigd.LOG.info("进入SQL测试模块");
+                        String cacheStats = SQLiteManager.getStatementCacheStats();
+                        sender.addChatMessage(new ChatComponentText(cacheStats));
+                        Wthaigd.LOG.info(cacheStats);
+                        String templateStats = "SQL模板缓存: " + SqlTemplates.size() + " 条";
+                        sender.addChatMessage(new ChatComponentText(templateStats));
+                        Wthaigd.LOG.info(templateStats);
+                        for (String line : EntityCaches.getStats()) {
+                            sender.addChatMessage(new ChatComponentText(line));
+                            Wthaigd.LOG.info(line);
+                        }
+                        String queryCacheStats = QueryCache.getStats();
+                        sender.addChatMessage(new ChatComponentText(queryCacheStats));
+                        Wthaigd.LOG.info(queryCacheStats);
+                        for (String line : QueryPlanAuditor.getReport()) {
+                            sender.addChatMessage(new ChatComponentText(line));
+                            Wthaigd.LOG.info(line);
+                        }
+                    }
+                    case "bench" -> {
+                        String kind = args.length > 2 ? args[2].toLowerCase() : "storage";
+                        int rows = args.length > 3 ? parseIntBounded(sender, args[3], 1, 1_000_000) : 10_000;
+                        sender.addChatMessage(new ChatComponentText("进入SQL性能测试模块: " + kind + ", 行数: " + rows));
+                        Wthaigd.LOG.info("进入SQL性能测试模块");
+                        for (String line : SQLiteBenchmark.run(kind, rows)) {
+                            sender.addChatMessage(new ChatComponentText(line));
+                            Wthaigd.LOG.info(line);
+                        }
                     }
                     case "config" -> {
                         sender.addChatMessage(new ChatComponentText("进入配置测试模块..."));
@@ -1,14 +1,16 @@
 package com.pinkyudeer.wthaigd.task;
 
-import java.util.Set;
+import java.util.List;
 
 import net.minecraft.entity.player.EntityPlayer;
 
-import org.reflections.Reflections;
-
 import com.pinkyudeer.wthaigd.Wthaigd;
+import com.pinkyudeer.wthaigd.helper.config.ConfigHelper;
+import com.pinkyudeer.wthaigd.helper.dataBase.EntityRegistry;
 import com.pinkyudeer.wthaigd.helper.dataBase.SQLHelper;
-import com.pinkyudeer.wthaigd.helper.dataBase.annotation.Table;
+import com.pinkyudeer.wthaigd.helper.dataBase.SchemaMigrator;
+import com.pinkyudeer.wthaigd.helper.dataBase.converter.TypeConverters;
+import com.pinkyudeer.wthaigd.helper.dataBase.converter.TypeConverters.UuidStorage;
 import com.pinkyudeer.wthaigd.task.dao.PlayerDao;
 
 /**
@@ -19,24 +21,63 @@ public class TaskSqlHelper {
 
     /**
      * 初始化任务数据库
-     * 扫描并创建所有任务相关的表
+     * 从编译时生成的实体索引读取所有任务相关的实体，创建缺少的表，并把已有的表迁移到实体定义的结构
+     *
+     * @throws RuntimeException 当读取实体索引、建表或迁移失败时抛出，迁移失败时 UUID 沿用已有表的存储格式
      */
     public static void initTaskDataBase() {
-        Reflections reflections = new Reflections("com.pinkyudeer.wthaigd.task.entity");
-        Set<Class<?>> annotatedClasses = reflections.getTypesAnnotatedWith(Table.class);
+        List<Class<?>> annotatedClasses;
+        try {
+            annotatedClasses = EntityRegistry.getEntities("com.pinkyudeer.wthaigd.task.entity");
+        } catch (RuntimeException e) {
+            // 没有实体就无法建表，继续启动会让之后的所有读写失败，需要让数据库初始化整体失败
+            throw new RuntimeException("读取实体索引失败", e);
+        }
+        boolean autoMigrate = ConfigHelper.getBoolean("sqlite.schema.autoMigrate", true);
         try {
-            SQLHelper.createTables(annotatedClasses);
-        } catch (Exception e) {
-            Wthaigd.LOG.error("初始化任务数据库失败", e);
-            return;
+            if (autoMigrate) {
+                SchemaMigrator.migrate(annotatedClasses);
+            } else {
+                alignUuidStorage(annotatedClasses, "未启用表结构迁移");
+                SQLHelper.createTables(annotatedClasses);
+            }
+        } catch (RuntimeException e) {
+            // 迁移失败时已整体回滚，已有的表仍是旧结构，UUID 需要沿用旧表的格式，否则写入会违反长度检查、按 UUID 查询也无法命中
+            if (autoMigrate) {
+                try {
+                    alignUuidStorage(annotatedClasses, "表结构迁移失败");
+                } catch (RuntimeException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw new RuntimeException("初始化任务数据库失败", e);
+        }
+        Wthaigd.LOG.info("初始化任务数据库，共 {} 张表", annotatedClasses.size());
+    }
+
+    /**
+     * 让 UUID 的写入格式与已有表中 UUID 列的格式一致。
+     *
+     * @param entityClasses 实体类集合
+     * @param reason        沿用已有格式的原因，用于日志
+     */
+    private static void alignUuidStorage(List<Class<?>> entityClasses, String reason) {
+        UuidStorage existing = SchemaMigrator.detectUuidStorage(entityClasses);
+        if (existing != null && existing != TypeConverters.getUuidStorage()) {
+            Wthaigd.LOG.warn("{}，UUID 沿用已有表的存储格式: {}", reason, existing);
+            TypeConverters.setUuidStorage(existing);
         }
-        Wthaigd.LOG.info("初始化任务数据库，共创建 {} 张表", annotatedClasses.size());
     }
 
     public static class player {
 
         public static void login(EntityPlayer player) {
-            PlayerDao.updateOrInsert(player);
+            String name = player.getDisplayName();
+            PlayerDao.updateOrInsert(player)
+                .exceptionally(e -> {
+                    Wthaigd.LOG.error("写入玩家登录数据失败: {}", name, e);
+                    return null;
+                });
         }
     }
 }
@@ -3,10 +3,10 @@ package com.pinkyudeer.wthaigd.task.dao;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import net.minecraft.entity.player.EntityPlayer;
 
-import com.pinkyudeer.wthaigd.helper.UtilHelper;
 import com.pinkyudeer.wthaigd.helper.dataBase.SQLHelper;
 import com.pinkyudeer.wthaigd.helper.dataBase.builder.DeleteBuilder;
 import com.pinkyudeer.wthaigd.helper.dataBase.builder.SelectBuilder;
@@ -50,18 +50,14 @@ public class PlayerDao {
         return SQLHelper.selectByPremiereKey(Player.class, uuid);
     }
 
-    public static void updateOrInsert(EntityPlayer player) {
-        Player entity = selectById(player.getUniqueID());
-        if (entity == null) {
-            entity = new Player(player);
-            SQLHelper.insert(entity);
-        } else {
-            Player oldEntity = UtilHelper.deepClone(entity, Player.class);
-            entity.setPlayer(player);
-            entity.setLastLoginTime(LocalDateTime.now());
-            SQLHelper.updateByCompare(entity, oldEntity)
-                .byId()
-                .execute();
-        }
+    public static CompletableFuture<Integer> updateOrInsert(EntityPlayer player) {
+        // 新玩家插入完整的默认数据，已有玩家只刷新名称和登录时间，一条语句完成
+        Player entity = new Player(player);
+        entity.setPlayer(player);
+        entity.setLastLoginTime(LocalDateTime.now());
+        // 实体在调用线程上构造，写入排在数据库线程的队列中，数据库仍在后台恢复时不阻塞服务器线程
+        return SQLHelper.upsert(entity)
+            .updateColumns("display_name", "last_login_time", "update_time")
+            .executeAsync();
     }
 }
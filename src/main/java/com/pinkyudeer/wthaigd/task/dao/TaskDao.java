@@ -2,6 +2,7 @@ package com.pinkyudeer.wthaigd.task.dao;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.UUID;
 
 import com.pinkyudeer.wthaigd.helper.dataBase.SQLHelper;
 import com.pinkyudeer.wthaigd.helper.dataBase.builder.DeleteBuilder;
@@ -11,6 +12,20 @@ import com.pinkyudeer.wthaigd.task.entity.Task;
 
 public class TaskDao {
 
+    /**
+     * 任务列表视图，只包含列表展示需要的列
+     */
+    public interface TaskSummary {
+
+        UUID getId();
+
+        String getTitle();
+
+        Task.TaskStatus getStatus();
+
+        Task.Priority getPriority();
+    }
+
     public static Integer insert(Task task) {
         return SQLHelper.insert(task);
     }
@@ -41,4 +56,10 @@ public class TaskDao {
     public static List<Task> selectAll() throws SQLException {
         return SQLHelper.selectAllFrom(Task.class);
     }
+
+    public static List<TaskSummary> selectSummaries() {
+        return SQLHelper.select(Task.class)
+            .cached()
+            .project(TaskSummary.class, "id", "title", "status", "priority");
+    }
 }
@@ -2,7 +2,9 @@ package com.pinkyudeer.wthaigd.task.dao.record;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.UUID;
 
+import com.pinkyudeer.wthaigd.helper.dataBase.Page;
 import com.pinkyudeer.wthaigd.helper.dataBase.SQLHelper;
 import com.pinkyudeer.wthaigd.helper.dataBase.builder.DeleteBuilder;
 import com.pinkyudeer.wthaigd.helper.dataBase.builder.SelectBuilder;
@@ -41,4 +43,34 @@ public class NotificationDao {
     public static List<Notification> selectAll() throws SQLException {
         return SQLHelper.selectAllFrom(Notification.class);
     }
+
+    /**
+     * 统计玩家的未读通知数量
+     *
+     * @param receiverId 接收者ID
+     * @return 未读通知数量
+     */
+    public static long countUnread(UUID receiverId) {
+        return SQLHelper.select(Notification.class)
+            .where("receiver_id", SQLHelper.Operator.EQ, receiverId)
+            .where("status", SQLHelper.Operator.EQ, Notification.NotificationStatus.UNREAD)
+            .cached()
+            .count();
+    }
+
+    /**
+     * 按时间倒序分页查询玩家收到的通知
+     *
+     * @param receiverId 接收者ID
+     * @param token      上一页返回的续页令牌，第一页传null
+     * @param size       每页数量
+     * @return 一页通知
+     */
+    public static Page<Notification> pageByReceiver(UUID receiverId, String token, int size) {
+        return SQLHelper.select(Notification.class)
+            .where("receiver_id", SQLHelper.Operator.EQ, receiverId)
+            .seekBy(false, "create_time", "id")
+            .after(token)
+            .page(size);
+    }
 }
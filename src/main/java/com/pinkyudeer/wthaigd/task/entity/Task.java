@@ -22,8 +22,7 @@ public class Task {
     @Nonnull
     @FieldCheck(type = FieldCheck.Type.UUID, dataType = UUID.class)
     @Column(name = "id", isPrimaryKey = true)
-    private String id = UUID.randomUUID()
-        .toString(); // 任务的唯一标识符，用 UUID
+    private UUID id = UUID.randomUUID(); // 任务的唯一标识符
     @Nonnull
     @Column(name = "title")
     private String title; // 任务标题